@@ -2,9 +2,19 @@ package com.php.demo.common;
 
 import android.app.Application;
 import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.multidex.MultiDex;
 
+import com.php.base.MemoryTrimDispatcher;
+import com.php.base.StartupManager;
+import com.php.base.StartupTask;
+import com.php.base.StartupTracer;
+import com.php.demo.helper.CacheQuotaManager;
+import com.php.demo.helper.DebugUtils;
 import com.php.demo.other.EventBusManager;
+import com.php.dialog.region.RegionRepository;
 import com.php.image.ImageLoader;
 import com.php.toast.ToastUtils;
 import com.php.umeng.UmengClient;
@@ -17,42 +27,173 @@ import cn.bingoogolapple.swipebacklayout.BGASwipeBackHelper;
  *    time   : 2018/10/18
  *    desc   : 项目中的 Application 基类
  */
-public class MyApplication extends Application {
+public class MyApplication extends Application implements MemoryTrimDispatcher.OnTrimMemoryListener {
 
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupTracer.beginSection("application");
+        // 记录冷启动的各个阶段，Debug 模式下输出 JSON
+        StartupTracer.install(this, DebugUtils.isDebug(this));
         initSDK(this);
+        MemoryTrimDispatcher.register(this);
+        StartupTracer.endSection("application");
     }
 
     /**
      * 初始化一些第三方框架
+     *
+     * 按照依赖关系拆分成启动任务：界面创建时马上要用到的在 onCreate 中完成，其他的推迟到第一帧之后或者主线程空闲时
      */
     public static void initSDK(Application application) {
-        /**
-         * 必须在 Application 的 onCreate 方法中执行 BGASwipeBackHelper.init 来初始化滑动返回
-         * 第一个参数：应用程序上下文
-         * 第二个参数：如果发现滑动返回后立即触摸界面时应用崩溃，请把该界面里比较特殊的 View 的 class 添加到该集合中，目前在库中已经添加了 WebView 和 SurfaceView
-         */
-        BGASwipeBackHelper.init(application, null);
+        new StartupManager(application)
+                .add(new StartupTask("swipeBack") {
 
-        // 初始化吐司工具类
-        ToastUtils.init(application);
+                    @Override
+                    public void run(Application application) {
+                        /**
+                         * 必须在 Application 的 onCreate 方法中执行 BGASwipeBackHelper.init 来初始化滑动返回
+                         * 第一个参数：应用程序上下文
+                         * 第二个参数：如果发现滑动返回后立即触摸界面时应用崩溃，请把该界面里比较特殊的 View 的 class 添加到该集合中，目前在库中已经添加了 WebView 和 SurfaceView
+                         */
+                        BGASwipeBackHelper.init(application, null);
+                    }
 
-        // 初始化图片加载器
-        ImageLoader.init(application);
+                    @Override
+                    public boolean isMainThread() {
+                        return true;
+                    }
+                })
+                .add(new StartupTask("toast") {
 
-        // 初始化 EventBus
-        EventBusManager.init();
+                    @Override
+                    public void run(Application application) {
+                        // 初始化吐司工具类（需要在主线程中创建 Toast）
+                        ToastUtils.init(application);
+                    }
 
-        // 初始化友盟 SDK
-        UmengClient.init(application);
+                    @Override
+                    public boolean isMainThread() {
+                        return true;
+                    }
+                })
+                .add(new StartupTask("memoryTrim") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 监听内存紧张，分发给各个模块释放缓存
+                        MemoryTrimDispatcher.install(application);
+                    }
+
+                    @Override
+                    public boolean isMainThread() {
+                        return true;
+                    }
+                })
+                .add(new StartupTask("image") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 初始化图片加载器
+                        ImageLoader.init(application);
+                    }
+
+                    @Override
+                    public boolean isBlocking() {
+                        // 第一个界面就会加载图片
+                        return true;
+                    }
+                })
+                .add(new StartupTask("eventBus") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 初始化 EventBus
+                        EventBusManager.init();
+                        // 预先计算界面基类是否需要注册，界面注册时只需要向上查找一层
+                        EventBusManager.preload(MyActivity.class, MyLazyFragment.class);
+                    }
+
+                    @Override
+                    public boolean isBlocking() {
+                        // 界面创建时就会注册
+                        return true;
+                    }
+                })
+                .add(new StartupTask("region") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 预加载省市区数据
+                        RegionRepository.init(application);
+                    }
+
+                    @Override
+                    public int getWhen() {
+                        return WHEN_FIRST_FRAME;
+                    }
+                })
+                .add(new StartupTask("umeng") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 初始化友盟 SDK（读取 meta-data 需要跨进程调用，推迟到第一帧之后）
+                        UmengClient.init(application);
+                    }
+
+                    @Override
+                    public boolean isMainThread() {
+                        return true;
+                    }
+
+                    @Override
+                    public int getWhen() {
+                        return WHEN_FIRST_FRAME;
+                    }
+                })
+                .add(new StartupTask("cacheQuota") {
+
+                    @Override
+                    public void run(Application application) {
+                        // 在充电或者空闲时把缓存控制在配额以内
+                        CacheQuotaManager.schedule(application, CacheQuotaManager.DEFAULT_QUOTA);
+                    }
+
+                    @Override
+                    public int getWhen() {
+                        return WHEN_IDLE;
+                    }
+                })
+                .start();
+    }
+
+    /**
+     * {@link MemoryTrimDispatcher.OnTrimMemoryListener}
+     */
+
+    @Override
+    public void onTrimMemory(int tier, int level) {
+        // Glide 自己注册了内存回调，界面不可见和内存严重不足时会自己处理，这里不要重复处理
+        if (tier == MemoryTrimDispatcher.TIER_RUNNING_LOW) {
+            // 图片内存缓存缩减一半，Glide 默认在内存不足（RUNNING_LOW）时不会处理
+            ImageLoader.trimMemory(this, TRIM_MEMORY_RUNNING_CRITICAL);
+        }
     }
 
     @Override
     protected void attachBaseContext(Context base) {
         super.attachBaseContext(base);
-        // 使用 Dex分包
+        // 使用 Dex分包（其他模块的类可能不在主 dex 中，安装完成之前只能使用系统的类来记录耗时）
+        long startTime = SystemClock.elapsedRealtime();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection("multiDex");
+        }
         MultiDex.install(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+        // Android 7.0 以下没有进程的创建时间，以 MultiDex 安装之前作为时间线的起点，这样总耗时中才包含 MultiDex
+        StartupTracer.setStartTime(startTime);
+        StartupTracer.record("multiDex", startTime, SystemClock.elapsedRealtime());
     }
 }
\ No newline at end of file
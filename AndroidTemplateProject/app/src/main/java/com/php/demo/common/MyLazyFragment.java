@@ -44,6 +44,17 @@ public abstract class MyLazyFragment<A extends MyActivity> extends UILazyFragmen
         EventBusManager.register(this);
     }
 
+    @Override
+    protected void onReleaseView() {
+        super.onReleaseView();
+        // 重新创建布局时会重新绑定和注册
+        if (mButterKnife != null) {
+            mButterKnife.unbind();
+            mButterKnife = null;
+        }
+        EventBusManager.unregister(this);
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -134,6 +134,22 @@ public abstract class MyListViewAdapter<T, VH extends MyListViewAdapter.ViewHold
             return this;
         }
 
+        public final ViewHolder setImage(@IdRes int viewId, String url, int width, int height) {
+            View view = findViewById(viewId);
+            if (view instanceof ImageView) {
+                ImageLoader.loadImage((ImageView) view, url, width, height);
+            }
+            return this;
+        }
+
+        public final ViewHolder setCircleImage(@IdRes int viewId, String url, int size) {
+            View view = findViewById(viewId);
+            if (view instanceof ImageView) {
+                ImageLoader.loadCircleImage((ImageView) view, url, size);
+            }
+            return this;
+        }
+
         public final ViewHolder setChecked(@IdRes int viewId, boolean checked) {
             View view = findViewById(viewId);
             if (view instanceof CompoundButton) {
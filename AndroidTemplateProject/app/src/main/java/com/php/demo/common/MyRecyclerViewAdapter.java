@@ -14,6 +14,9 @@ import android.widget.TextView;
 import com.php.base.BaseRecyclerViewAdapter;
 import com.php.image.ImageLoader;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import butterknife.ButterKnife;
 
 /**
@@ -32,6 +35,12 @@ public abstract class MyRecyclerViewAdapter<T, VH extends MyRecyclerViewAdapter.
     // 标记对象
     private Object mTag;
 
+    // 预加载图片的尺寸，需要和条目中加载图片的尺寸一致
+    private int mPreloadWidth;
+    private int mPreloadHeight;
+    // 预加载图片地址的临时集合，避免每次预加载都创建集合
+    private final List<String> mPreloadUrls = new ArrayList<>();
+
     public MyRecyclerViewAdapter(Context context) {
         super(context);
     }
@@ -78,6 +87,35 @@ public abstract class MyRecyclerViewAdapter<T, VH extends MyRecyclerViewAdapter.
         mTag = tag;
     }
 
+    /**
+     * 开启滚动时的图片预加载
+     *
+     * @param count             预加载的条目数量
+     * @param width             图片宽度，需要和 {@link ViewHolder#setImage(int, String, int, int)} 传入的尺寸一致
+     * @param height            图片高度
+     */
+    public void setPreloadImage(int count, int width, int height) {
+        mPreloadWidth = width;
+        mPreloadHeight = height;
+        setPreloadCount(count);
+    }
+
+    @Override
+    protected void onPreloadItem(int position, T item) {
+        collectPreloadUrls(position, item, mPreloadUrls);
+        for (int i = 0; i < mPreloadUrls.size(); i++) {
+            ImageLoader.preload(getContext(), mPreloadUrls.get(i), mPreloadWidth, mPreloadHeight);
+        }
+        mPreloadUrls.clear();
+    }
+
+    /**
+     * 收集某个条目需要预加载的图片地址，开启了图片预加载的子类需要重写
+     *
+     * @param urls              添加图片地址的集合
+     */
+    protected void collectPreloadUrls(int position, T item, List<String> urls) {}
+
     public class ViewHolder extends BaseRecyclerViewAdapter.ViewHolder {
 
         public ViewHolder(ViewGroup parent, int layoutId) {
@@ -135,6 +173,22 @@ public abstract class MyRecyclerViewAdapter<T, VH extends MyRecyclerViewAdapter.
             return this;
         }
 
+        public final ViewHolder setImage(@IdRes int viewId, String url, int width, int height) {
+            View view = findViewById(viewId);
+            if (view instanceof ImageView) {
+                ImageLoader.loadImage((ImageView) view, url, width, height);
+            }
+            return this;
+        }
+
+        public final ViewHolder setCircleImage(@IdRes int viewId, String url, int size) {
+            View view = findViewById(viewId);
+            if (view instanceof ImageView) {
+                ImageLoader.loadCircleImage((ImageView) view, url, size);
+            }
+            return this;
+        }
+
         public final ViewHolder setChecked(@IdRes int viewId, boolean checked) {
             View view = findViewById(viewId);
             if (view instanceof CompoundButton) {
@@ -2,72 +2,275 @@ package com.php.demo.helper;
 
 import android.content.Context;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 
 import java.io.File;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *    author : xxx
  *    xxx
  *    time   : 2019/03/01
  *    desc   : 应用缓存管理
+ *    illustration    :
+ *    ①{@link #scanCache(Context, OnCacheListener)} 和 {@link #clearCache(Context, OnCacheListener)} 在线程池中并行遍历目录，
+ *    每个目录是一个单独的任务，空闲的线程会从队列中领取下一个目录，大目录不会拖慢其他目录；进度和结果回调到主线程，可以随时取消
+ *    ②每个目录的文件列表会按目录的修改时间缓存起来，目录中的文件没有增删时不需要再次读取文件列表和区分文件类型；
+ *    文件的大小每次都会重新读取，文件内容变化（例如数据库、日志追加写入）不会改变目录的修改时间
+ *    ③缓存目录下的第一级子目录按名称归类：图片缓存、WebView 缓存、网络缓存、下载文件，其余的归为其他
  */
-public class CacheDataManager {
+public final class CacheDataManager {
+
+    /** 图片磁盘缓存 */
+    public static final int CATEGORY_IMAGE = 0;
+    /** WebView 缓存 */
+    public static final int CATEGORY_WEB = 1;
+    /** 网络请求缓存 */
+    public static final int CATEGORY_HTTP = 2;
+    /** 下载的文件 */
+    public static final int CATEGORY_DOWNLOAD = 3;
+    /** 其他缓存 */
+    public static final int CATEGORY_OTHER = 4;
+
+    private static final int CATEGORY_COUNT = 5;
+
+    // 进度回调的最小间隔
+    private static final long PROGRESS_INTERVAL = 100;
+
+    // 遍历目录的线程数量
+    private static final int THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // 遍历目录的线程池，空闲时会自动回收
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    // 目录信息缓存，key 为目录路径
+    private static final Map<String, DirectoryInfo> sDirectoryCache = new ConcurrentHashMap<>();
+
+    private CacheDataManager() {}
+
+    /**
+     * 在子线程中统计缓存大小
+     *
+     * @param listener          统计的进度和结果，在主线程中回调
+     * @return                  统计任务，界面销毁时需要取消
+     */
+    public static CacheTask scanCache(Context context, OnCacheListener listener) {
+        final CacheTask task = new CacheTask(listener);
+        task.begin();
+        for (final File root : getCacheDirs(context)) {
+            task.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    DirectoryInfo info = getDirectoryInfo(root);
+                    task.add(CATEGORY_OTHER, info.getFileSize());
+                    for (File directory : info.directories) {
+                        scanDirectory(task, directory, getCategory(directory.getName()));
+                    }
+                }
+            });
+        }
+        task.end();
+        return task;
+    }
+
+    /**
+     * 在子线程中清除缓存
+     *
+     * @param listener          清除的进度和结果，回调的是已经释放的大小
+     * @return                  清除任务，界面销毁时需要取消
+     */
+    public static CacheTask clearCache(Context context, OnCacheListener listener) {
+        final CacheTask task = new CacheTask(listener);
+        task.begin();
+        for (final File root : getCacheDirs(context)) {
+            task.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    File[] files = root.listFiles();
+                    if (files == null) {
+                        return;
+                    }
+                    // 第一级的每个文件或者目录作为单独的任务并行删除
+                    for (final File file : files) {
+                        task.execute(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                deleteFile(task, file, file.isDirectory() ? getCategory(file.getName()) : CATEGORY_OTHER);
+                            }
+                        });
+                    }
+                }
+            });
+        }
+        task.end();
+        return task;
+    }
 
     /**
-     * 获取缓存大小
+     * 获取缓存大小（会阻塞当前线程，界面中请使用 {@link #scanCache(Context, OnCacheListener)}）
      */
     public static String getTotalCacheSize(Context context) {
-        long cacheSize = getFolderSize(context.getCacheDir());
-        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
-            cacheSize += getFolderSize(context.getExternalCacheDir());
+        long cacheSize = 0;
+        for (File root : getCacheDirs(context)) {
+            cacheSize += getFolderSize(root);
         }
         return getFormatSize(cacheSize);
     }
 
     /**
-     * 清除缓存
+     * 清除缓存（会阻塞当前线程，界面中请使用 {@link #clearCache(Context, OnCacheListener)}）
      */
     public static void clearAllCache(Context context) {
-        deleteDir(context.getCacheDir());
-        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED)) {
-            deleteDir(context.getExternalCacheDir());
+        CacheTask task = new CacheTask(null);
+        for (File root : getCacheDirs(context)) {
+            File[] files = root.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                deleteFile(task, file, CATEGORY_OTHER);
+            }
+        }
+    }
+
+    /**
+     * 获取需要统计的缓存目录
+     */
+    private static List<File> getCacheDirs(Context context) {
+        List<File> dirs = new ArrayList<>(2);
+        if (context.getCacheDir() != null) {
+            dirs.add(context.getCacheDir());
         }
+        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED) && context.getExternalCacheDir() != null) {
+            dirs.add(context.getExternalCacheDir());
+        }
+        return dirs;
+    }
+
+    /**
+     * 根据缓存目录下第一级子目录的名称进行归类
+     */
+    private static int getCategory(String name) {
+        name = name.toLowerCase(Locale.ENGLISH);
+        if (name.contains("image") || name.contains("glide") || name.contains("picture")) {
+            return CATEGORY_IMAGE;
+        } else if (name.contains("webview") || name.contains("chromium") || name.contains("appcache")) {
+            return CATEGORY_WEB;
+        } else if (name.contains("http") || name.contains("volley") || name.contains("response")) {
+            return CATEGORY_HTTP;
+        } else if (name.contains("download") || name.contains("apk")) {
+            return CATEGORY_DOWNLOAD;
+        }
+        return CATEGORY_OTHER;
+    }
+
+    /**
+     * 统计一个目录，子目录会作为新的任务交给线程池
+     */
+    private static void scanDirectory(final CacheTask task, final File directory, final int category) {
+        task.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                DirectoryInfo info = getDirectoryInfo(directory);
+                task.add(category, info.getFileSize());
+                for (File child : info.directories) {
+                    scanDirectory(task, child, category);
+                }
+            }
+        });
     }
 
     /**
-     * 删除文件夹
+     * 递归删除文件或者目录，删除失败的文件会被记录下来
      */
-    private static boolean deleteDir(File dir) {
-        if (dir != null && dir.isDirectory()) {
-            String[] children = dir.list();
-            for (int i = 0; i < children.length; i++) {
-                boolean success = deleteDir(new File(dir, children[i]));
-                if (!success) {
-                    return false;
+    private static void deleteFile(CacheTask task, File file, int category) {
+        if (task.isCancelled()) {
+            return;
+        }
+
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    deleteFile(task, child, category);
                 }
             }
+            sDirectoryCache.remove(file.getPath());
+            if (!file.delete()) {
+                task.fail();
+            }
+            return;
+        }
+
+        long length = file.length();
+        if (file.delete()) {
+            task.add(category, length);
+        } else {
+            task.fail();
         }
-        return dir.delete();
     }
 
-    // 获取文件大小
-    // Context.getExternalFilesDir() --> SDCard/Android/data/你的应用的包名/files/ 目录，一般放一些长时间保存的数据
-    // Context.getExternalCacheDir() --> SDCard/Android/data/你的应用包名/cache/目录，一般存放临时缓存数据
-    private static long getFolderSize(File file) {
-        long size = 0;
-        try {
-            File[] fileList = file.listFiles();
-            for (int i = 0; i < fileList.length; i++) {
-                // 如果下面还有文件
-                if (fileList[i].isDirectory()) {
-                    size = size + getFolderSize(fileList[i]);
+    /**
+     * 获取目录信息，目录的修改时间没有变化时直接使用缓存的文件列表
+     * 注意：目录的修改时间只会在直接子文件增删或者重命名时变化，子目录中的变化由子目录自己的修改时间判断
+     */
+    private static DirectoryInfo getDirectoryInfo(File directory) {
+        String path = directory.getPath();
+        long lastModified = directory.lastModified();
+        DirectoryInfo info = sDirectoryCache.get(path);
+        if (info != null && lastModified != 0 && info.lastModified == lastModified) {
+            return info;
+        }
+
+        List<File> files = new ArrayList<>();
+        List<File> directories = new ArrayList<>();
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    directories.add(child);
                 } else {
-                    size = size + fileList[i].length();
+                    files.add(child);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        }
+        info = new DirectoryInfo(lastModified, files.toArray(new File[files.size()]),
+                directories.toArray(new File[directories.size()]));
+        sDirectoryCache.put(path, info);
+        return info;
+    }
+
+    /**
+     * 在当前线程中统计目录大小
+     */
+    private static long getFolderSize(File directory) {
+        DirectoryInfo info = getDirectoryInfo(directory);
+        long size = info.getFileSize();
+        for (File child : info.directories) {
+            size += getFolderSize(child);
         }
         return size;
     }
@@ -75,7 +278,7 @@ public class CacheDataManager {
     /**
      * 格式化单位
      */
-    private static String getFormatSize(double size) {
+    public static String getFormatSize(double size) {
         double kiloByte = size / 1024;
         if (kiloByte < 1) {
             // return size + "Byte";
@@ -106,4 +309,213 @@ public class CacheDataManager {
         return result4.setScale(2, BigDecimal.ROUND_HALF_UP).toPlainString()
                 + "TB";
     }
-}
\ No newline at end of file
+
+    /**
+     * 目录信息
+     */
+    private static final class DirectoryInfo {
+
+        // 目录的修改时间
+        private final long lastModified;
+        // 直接子文件
+        private final File[] files;
+        // 直接子目录
+        private final File[] directories;
+
+        private DirectoryInfo(long lastModified, File[] files, File[] directories) {
+            this.lastModified = lastModified;
+            this.files = files;
+            this.directories = directories;
+        }
+
+        /**
+         * 直接子文件的总大小（不包含子目录），每次都重新读取
+         */
+        private long getFileSize() {
+            long size = 0;
+            for (File file : files) {
+                // 已经被删除的文件返回 0
+                size += file.length();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 缓存统计或者清除任务
+     */
+    public static final class CacheTask {
+
+        private final AtomicLong[] mSizes = new AtomicLong[CATEGORY_COUNT];
+        private final AtomicInteger mFailedCount = new AtomicInteger();
+        // 还没有执行完成的目录任务数量
+        private final AtomicInteger mPending = new AtomicInteger();
+
+        private volatile OnCacheListener mListener;
+        private volatile boolean mCancelled;
+        private volatile long mLastProgressTime;
+
+        private CacheTask(OnCacheListener listener) {
+            mListener = listener;
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                mSizes[i] = new AtomicLong();
+            }
+        }
+
+        /**
+         * 取消任务，取消后不会再有任何回调
+         */
+        public void cancel() {
+            mCancelled = true;
+            mListener = null;
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        /**
+         * 提交目录任务前调用，避免第一批任务还没提交完就被判定为结束
+         */
+        private void begin() {
+            mPending.incrementAndGet();
+        }
+
+        private void end() {
+            if (mPending.decrementAndGet() == 0) {
+                dispatch(true);
+            }
+        }
+
+        private void execute(final Runnable runnable) {
+            if (mCancelled) {
+                return;
+            }
+            begin();
+            EXECUTOR.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        if (!mCancelled) {
+                            runnable.run();
+                            dispatchProgress();
+                        }
+                    } catch (SecurityException e) {
+                        e.printStackTrace();
+                    } finally {
+                        end();
+                    }
+                }
+            });
+        }
+
+        private void add(int category, long size) {
+            if (size != 0) {
+                mSizes[category].addAndGet(size);
+            }
+        }
+
+        private void fail() {
+            mFailedCount.incrementAndGet();
+        }
+
+        private void dispatchProgress() {
+            long time = SystemClock.uptimeMillis();
+            if (time - mLastProgressTime >= PROGRESS_INTERVAL) {
+                mLastProgressTime = time;
+                dispatch(false);
+            }
+        }
+
+        private void dispatch(final boolean complete) {
+            if (mCancelled || mListener == null) {
+                return;
+            }
+            long[] sizes = new long[CATEGORY_COUNT];
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                sizes[i] = mSizes[i].get();
+            }
+            final CacheSize size = new CacheSize(sizes, mFailedCount.get());
+            HANDLER.post(new Runnable() {
+
+                @Override
+                public void run() {
+                    OnCacheListener listener = mListener;
+                    if (mCancelled || listener == null) {
+                        return;
+                    }
+                    if (complete) {
+                        listener.onComplete(size);
+                    } else {
+                        listener.onProgress(size);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 按类别统计的缓存大小
+     */
+    public static final class CacheSize {
+
+        private final long[] mSizes;
+        private final int mFailedCount;
+
+        private CacheSize(long[] sizes, int failedCount) {
+            mSizes = sizes;
+            mFailedCount = failedCount;
+        }
+
+        /**
+         * 获取某个类别的大小
+         *
+         * @param category          类别，例如 {@link #CATEGORY_IMAGE}
+         */
+        public long getSize(int category) {
+            return mSizes[category];
+        }
+
+        /**
+         * 获取总大小
+         */
+        public long getTotalSize() {
+            long size = 0;
+            for (long s : mSizes) {
+                size += s;
+            }
+            return size;
+        }
+
+        /**
+         * 获取格式化后的总大小
+         */
+        public String getFormatTotalSize() {
+            return getFormatSize(getTotalSize());
+        }
+
+        /**
+         * 获取删除失败的文件数量（只有清除缓存时才有）
+         */
+        public int getFailedCount() {
+            return mFailedCount;
+        }
+    }
+
+    /**
+     * 缓存统计或者清除的监听器
+     */
+    public interface OnCacheListener {
+
+        /**
+         * 进度回调，当前已经统计或者清除的大小
+         */
+        void onProgress(CacheSize size);
+
+        /**
+         * 完成回调
+         */
+        void onComplete(CacheSize size);
+    }
+}
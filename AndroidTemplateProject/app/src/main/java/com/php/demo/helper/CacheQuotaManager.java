@@ -0,0 +1,293 @@
+package com.php.demo.helper;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Environment;
+import android.os.SystemClock;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import com.php.demo.other.CacheEvictionService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/10
+ *    desc   : 缓存配额管理
+ *    illustration    :
+ *    ①所有缓存目录的总大小超过配额时，按最近使用时间从旧到新删除文件，直到总大小回到配额以内
+ *    ②Android 5.0 及以上通过 JobScheduler 在充电或者设备空闲时执行，低版本在应用启动后的子线程中执行一次
+ *    ③图片磁盘缓存由 Glide 自己按 LRU 管理，直接删除文件会让 Glide 的日志和文件对不上，所以只计入总大小，不参与删除
+ *    ④同一时间只会有一个检查在执行，充电和设备空闲的任务同时开始时后一个会等前一个完成，这时缓存已经在配额以内
+ */
+public final class CacheQuotaManager {
+
+    private static final String TAG = "CacheQuotaManager";
+
+    /** 默认的缓存配额 */
+    public static final long DEFAULT_QUOTA = 200 * 1024 * 1024;
+
+    // 由其他框架自己管理的缓存目录
+    private static final String[] MANAGED_DIRS = {"image_manager_disk_cache"};
+
+    // 最近一段时间内修改过的文件可能正在使用，不删除
+    private static final long MIN_FILE_AGE = 60 * 1000;
+
+    // 最近一次执行的结果
+    private static volatile Result sLastResult;
+
+    // 保证同一时间只有一个检查在遍历和删除文件
+    private static final Object ENFORCE_LOCK = new Object();
+
+    // 按最近使用时间从旧到新排序
+    private static final Comparator<CacheFile> LRU_COMPARATOR = new Comparator<CacheFile>() {
+
+        @Override
+        public int compare(CacheFile o1, CacheFile o2) {
+            return o1.lastUsed < o2.lastUsed ? -1 : (o1.lastUsed == o2.lastUsed ? 0 : 1);
+        }
+    };
+
+    private CacheQuotaManager() {}
+
+    /**
+     * 安排缓存配额检查（一般在 Application 中调用）
+     *
+     * @param quota             缓存总大小的配额（字节）
+     */
+    public static void schedule(final Context context, final long quota) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            CacheEvictionService.schedule(context, quota);
+            return;
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        Thread thread = new Thread("CacheQuotaManager") {
+
+            @Override
+            public void run() {
+                enforce(applicationContext, quota, new AtomicBoolean());
+            }
+        };
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * 获取最近一次执行的结果，还没有执行过返回 null
+     */
+    public static Result getLastResult() {
+        return sLastResult;
+    }
+
+    /**
+     * 执行缓存配额检查（耗时操作，必须在子线程中调用）
+     *
+     * @param quota             缓存总大小的配额（字节）
+     * @param cancelled         取消标记，被设置后会尽快停止删除
+     */
+    public static Result enforce(Context context, long quota, AtomicBoolean cancelled) {
+        synchronized (ENFORCE_LOCK) {
+            return enforceLocked(context, quota, cancelled);
+        }
+    }
+
+    private static Result enforceLocked(Context context, long quota, AtomicBoolean cancelled) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        List<CacheFile> files = new ArrayList<>();
+        long totalSize = 0;
+        for (File root : getCacheDirs(context)) {
+            totalSize += collectFiles(root, files, true);
+        }
+
+        long currentSize = totalSize;
+        long freedSize = 0;
+        int deletedCount = 0;
+        if (totalSize > quota) {
+            Collections.sort(files, LRU_COMPARATOR);
+            long now = System.currentTimeMillis();
+            for (CacheFile file : files) {
+                if (currentSize <= quota || cancelled.get()) {
+                    break;
+                }
+                if (now - file.lastUsed < MIN_FILE_AGE) {
+                    // 剩下的都是最近使用过的文件
+                    break;
+                }
+                if (file.file.delete()) {
+                    currentSize -= file.length;
+                    freedSize += file.length;
+                    deletedCount++;
+                }
+            }
+        }
+
+        Result result = new Result(totalSize, currentSize, freedSize, deletedCount,
+                SystemClock.elapsedRealtime() - startTime);
+        sLastResult = result;
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * 获取需要管理的缓存目录
+     */
+    private static List<File> getCacheDirs(Context context) {
+        List<File> dirs = new ArrayList<>(2);
+        if (context.getCacheDir() != null) {
+            dirs.add(context.getCacheDir());
+        }
+        if (Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED) && context.getExternalCacheDir() != null) {
+            dirs.add(context.getExternalCacheDir());
+        }
+        return dirs;
+    }
+
+    /**
+     * 收集目录下可以删除的文件
+     *
+     * @param root              是否为缓存根目录，只有根目录下的受管理目录会被跳过
+     * @return                  目录的总大小（包括不能删除的文件）
+     */
+    private static long collectFiles(File directory, List<CacheFile> files, boolean root) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return 0;
+        }
+
+        long size = 0;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                if (root && isManagedDir(child.getName())) {
+                    size += getFolderSize(child);
+                } else {
+                    size += collectFiles(child, files, false);
+                }
+            } else {
+                long length = child.length();
+                size += length;
+                files.add(new CacheFile(child, length, getLastUsedTime(child)));
+            }
+        }
+        return size;
+    }
+
+    private static boolean isManagedDir(String name) {
+        for (String dir : MANAGED_DIRS) {
+            if (dir.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getFolderSize(File directory) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return 0;
+        }
+        long size = 0;
+        for (File child : children) {
+            size += child.isDirectory() ? getFolderSize(child) : child.length();
+        }
+        return size;
+    }
+
+    /**
+     * 获取文件最近的使用时间，Android 5.0 及以上同时参考访问时间和修改时间
+     */
+    private static long getLastUsedTime(File file) {
+        long lastModified = file.lastModified();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            try {
+                return Math.max(lastModified, Os.stat(file.getPath()).st_atime * 1000);
+            } catch (ErrnoException e) {
+                e.printStackTrace();
+            }
+        }
+        return lastModified;
+    }
+
+    private static final class CacheFile {
+
+        private final File file;
+        private final long length;
+        private final long lastUsed;
+
+        private CacheFile(File file, long length, long lastUsed) {
+            this.file = file;
+            this.length = length;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * 缓存配额检查的结果
+     */
+    public static final class Result {
+
+        private final long mTotalSize;
+        private final long mRemainSize;
+        private final long mFreedSize;
+        private final int mDeletedCount;
+        private final long mDuration;
+
+        private Result(long totalSize, long remainSize, long freedSize, int deletedCount, long duration) {
+            mTotalSize = totalSize;
+            mRemainSize = remainSize;
+            mFreedSize = freedSize;
+            mDeletedCount = deletedCount;
+            mDuration = duration;
+        }
+
+        /**
+         * 检查前的缓存总大小
+         */
+        public long getTotalSize() {
+            return mTotalSize;
+        }
+
+        /**
+         * 检查后剩余的缓存大小
+         */
+        public long getRemainSize() {
+            return mRemainSize;
+        }
+
+        /**
+         * 释放的大小
+         */
+        public long getFreedSize() {
+            return mFreedSize;
+        }
+
+        /**
+         * 删除的文件数量
+         */
+        public int getDeletedCount() {
+            return mDeletedCount;
+        }
+
+        /**
+         * 执行耗时（毫秒）
+         */
+        public long getDuration() {
+            return mDuration;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{total=" + mTotalSize + ", remain=" + mRemainSize + ", freed=" + mFreedSize
+                    + ", deleted=" + mDeletedCount + ", duration=" + mDuration + "ms}";
+        }
+    }
+}
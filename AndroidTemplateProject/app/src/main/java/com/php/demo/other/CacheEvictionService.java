@@ -0,0 +1,121 @@
+package com.php.demo.other;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.os.PersistableBundle;
+import android.util.SparseArray;
+
+import com.php.demo.helper.CacheQuotaManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/10
+ *    desc   : 缓存配额检查任务
+ *    illustration    :
+ *    JobScheduler 的多个约束条件是同时满足的关系，所以充电和设备空闲分成两个任务，哪个先满足就先执行，
+ *    另一个执行时缓存已经在配额以内，很快就会结束
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public final class CacheEvictionService extends JobService {
+
+    private static final int JOB_ID_CHARGING = 0x43510001;
+    private static final int JOB_ID_IDLE = 0x43510002;
+
+    private static final String EXTRA_QUOTA = "quota";
+
+    // 执行间隔
+    private static final long INTERVAL = TimeUnit.DAYS.toMillis(1);
+
+    // 正在执行的任务的取消标记，key 为任务 id，充电和设备空闲的任务可能同时在执行
+    private final SparseArray<AtomicBoolean> mCancelFlags = new SparseArray<>();
+
+    /**
+     * 安排充电时和设备空闲时的缓存配额检查，已经安排过相同配额的任务不会重复安排
+     */
+    public static void schedule(Context context, long quota) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) {
+            return;
+        }
+        schedule(context, scheduler, JOB_ID_CHARGING, quota);
+        schedule(context, scheduler, JOB_ID_IDLE, quota);
+    }
+
+    private static void schedule(Context context, JobScheduler scheduler, int jobId, long quota) {
+        for (JobInfo info : scheduler.getAllPendingJobs()) {
+            if (info.getId() == jobId && info.getExtras().getLong(EXTRA_QUOTA) == quota) {
+                // 重新安排会重置执行周期
+                return;
+            }
+        }
+
+        PersistableBundle extras = new PersistableBundle();
+        extras.putLong(EXTRA_QUOTA, quota);
+        JobInfo.Builder builder = new JobInfo.Builder(jobId, new ComponentName(context, CacheEvictionService.class))
+                .setPeriodic(INTERVAL)
+                .setExtras(extras);
+        if (jobId == JOB_ID_CHARGING) {
+            builder.setRequiresCharging(true);
+        } else {
+            builder.setRequiresDeviceIdle(true);
+        }
+        scheduler.schedule(builder.build());
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final long quota = params.getExtras().getLong(EXTRA_QUOTA, CacheQuotaManager.DEFAULT_QUOTA);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        synchronized (mCancelFlags) {
+            mCancelFlags.put(params.getJobId(), cancelled);
+        }
+        new Thread("CacheEvictionService") {
+
+            @Override
+            public void run() {
+                boolean reschedule = false;
+                try {
+                    CacheQuotaManager.enforce(getApplicationContext(), quota, cancelled);
+                } catch (RuntimeException e) {
+                    // 例如文件系统异常，按照退避策略稍后重试
+                    e.printStackTrace();
+                    reschedule = true;
+                }
+                synchronized (mCancelFlags) {
+                    if (mCancelFlags.get(params.getJobId()) == cancelled) {
+                        mCancelFlags.remove(params.getJobId());
+                    }
+                }
+                if (!cancelled.get()) {
+                    jobFinished(params, reschedule);
+                }
+            }
+        }.start();
+        // 在子线程中执行，完成后调用 jobFinished
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // 约束条件不再满足（例如拔掉了充电器），停止删除，等下次满足条件时再执行
+        AtomicBoolean cancelled;
+        synchronized (mCancelFlags) {
+            cancelled = mCancelFlags.get(params.getJobId());
+            mCancelFlags.remove(params.getJobId());
+        }
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+        return true;
+    }
+}
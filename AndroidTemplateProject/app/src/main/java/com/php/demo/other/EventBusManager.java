@@ -1,7 +1,5 @@
 package com.php.demo.other;
 
-import android.support.v4.util.ArrayMap;
-
 import com.php.demo.MyEventBusIndex;
 
 import org.greenrobot.eventbus.EventBus;
@@ -9,6 +7,8 @@ import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
 import org.greenrobot.eventbus.meta.SubscriberInfoIndex;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  *    author : xxx
  *    xxx
@@ -20,8 +20,8 @@ public final class EventBusManager {
     // EventBus 索引类
     private static final SubscriberInfoIndex SUBSCRIBE_INDEX = new MyEventBusIndex();
 
-    // 这个类是否需要注册 EventBus
-    private static final ArrayMap<String, Boolean> SUBSCRIBE_EVENT = new ArrayMap<>();
+    // 这个类是否需要注册 EventBus，以 Class 为 key，查询时不需要拼接类名，可以在任意线程中并发读写
+    private static final ConcurrentHashMap<Class<?>, Boolean> SUBSCRIBE_EVENT = new ConcurrentHashMap<>();
 
     // 不允许被外部实例化
     private EventBusManager() {}
@@ -36,6 +36,16 @@ public final class EventBusManager {
                 .installDefaultEventBus(); // 作为默认配置
     }
 
+    /**
+     * 预先计算一些类是否需要注册 EventBus（例如 Activity 和 Fragment 的基类），之后注册时直接命中缓存
+     * 索引类没有提供遍历所有订阅类的方法，所以只能由外部传入需要预先计算的类
+     */
+    public static void preload(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            canSubscribeEvent(clazz);
+        }
+    }
+
     /**
      * 注册 EventBus
      */
@@ -60,40 +70,38 @@ public final class EventBusManager {
      * @param subscriber                 被订阅的类
      */
     private static boolean canSubscribeEvent(Object subscriber) {
-        Class<?> clazz = subscriber.getClass();
-        // 这个 Class 类型有没有遍历过
-        Boolean result = SUBSCRIBE_EVENT.get(clazz.getName());
+        return canSubscribeEvent(subscriber.getClass());
+    }
+
+    private static boolean canSubscribeEvent(Class<?> clazz) {
+        // 这个 Class 类型有没有遍历过，有的话直接返回结果
+        Boolean result = SUBSCRIBE_EVENT.get(clazz);
         if (result != null) {
-            // 有的话直接返回结果
             return result;
         }
 
-        // 没有的话进行遍历
-        while (clazz != null) {
-            // 如果索引集合中有这个 Class 类型的订阅信息，则这个类型的对象都需要注册 EventBus
-            if (SUBSCRIBE_INDEX.getSubscriberInfo(clazz) != null) {
-                // 这个类需要注册 EventBus
-                result = true;
-                clazz = null;
+        // 如果索引集合中有这个 Class 类型的订阅信息，则这个类型的对象都需要注册 EventBus
+        if (SUBSCRIBE_INDEX.getSubscriberInfo(clazz) != null) {
+            result = true;
+        } else {
+            Class<?> superclass = clazz.getSuperclass();
+            // 跳过系统类（忽略 java. javax. android. androidx. 等开头包名的类）
+            if (superclass == null || isSystemClass(superclass)) {
+                result = false;
             } else {
-                String clazzName = clazz.getName();
-                // 跳过系统类（忽略 java. javax. android. androidx. 等开头包名的类）
-                if (clazzName.startsWith("java") || clazzName.startsWith("android")) {
-                    clazz = null;
-                } else {
-                    // 往上查找
-                    clazz = clazz.getSuperclass();
-                }
+                // 往上查找，父类的结果同样会被缓存，同一个父类的其他子类不需要再遍历
+                result = canSubscribeEvent(superclass);
             }
         }
-        // 这个类不需要注册 EventBus
-        if (result == null) {
-            result = false;
-        }
-        SUBSCRIBE_EVENT.put(subscriber.getClass().getName(), result);
+        SUBSCRIBE_EVENT.put(clazz, result);
         return result;
     }
 
+    private static boolean isSystemClass(Class<?> clazz) {
+        String clazzName = clazz.getName();
+        return clazzName.startsWith("java") || clazzName.startsWith("android");
+    }
+
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onEventBus(EventBusManager helper) {
         // 占位，只为了能生成 MyEventBusIndex 索引类
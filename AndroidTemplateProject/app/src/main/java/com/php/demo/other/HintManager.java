@@ -8,6 +8,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.php.base.BaseDialog;
+import com.php.base.MemoryTrimDispatcher;
 import com.php.demo.R;
 import com.php.dialog.WaitDialog;
 import com.php.widget.HintLayout;
@@ -18,7 +19,7 @@ import com.php.widget.HintLayout;
  *    time   : 2019/04/18
  *    desc   : 界面提示管理类
  */
-public class HintManager {
+public class HintManager implements MemoryTrimDispatcher.OnTrimMemoryListener {
 
     // 加载对话框
     private BaseDialog mDialog;
@@ -34,6 +35,7 @@ public class HintManager {
             mDialog = new WaitDialog.Builder(activity)
                     .setMessage("加载中...") // 消息文本可以不用填写
                     .create();
+            MemoryTrimDispatcher.register(this);
         }
 
         if (!mDialog.isShowing()) {
@@ -98,6 +100,19 @@ public class HintManager {
         mHintLayout.setHint(hint);
     }
 
+    /**
+     * {@link MemoryTrimDispatcher.OnTrimMemoryListener}
+     */
+
+    @Override
+    public void onTrimMemory(int tier, int level) {
+        // 界面不可见时释放没有在显示的加载对话框，下次显示时再重新创建
+        if (mDialog != null && !mDialog.isShowing()) {
+            mDialog = null;
+            MemoryTrimDispatcher.unregister(this);
+        }
+    }
+
     /**
      * 智能获取布局中的 HintLayout 对象
      */
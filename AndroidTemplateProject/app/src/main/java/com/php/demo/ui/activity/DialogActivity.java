@@ -56,7 +56,8 @@ public class DialogActivity extends MyActivity {
 
     @Override
     protected void initData() {
-
+        // 省市区对话框的布局比较复杂，提前加载
+        AddressDialog.preload(this);
     }
 
     BaseDialog waitDialog;
@@ -1,12 +1,18 @@
 package com.php.demo.ui.activity;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.design.widget.BottomNavigationView;
+import android.support.v4.content.ContextCompat;
 import android.support.v4.view.ViewPager;
+import android.support.v7.view.ContextThemeWrapper;
 import android.view.KeyEvent;
 import android.view.MenuItem;
+import android.view.ViewTreeObserver;
 
 import com.php.base.BaseFragmentAdapter;
+import com.php.base.LayoutPreloader;
+import com.php.base.StartupTracer;
 import com.php.demo.R;
 import com.php.demo.common.MyActivity;
 import com.php.demo.common.MyLazyFragment;
@@ -17,6 +23,8 @@ import com.php.demo.ui.fragment.TestFragmentB;
 import com.php.demo.ui.fragment.TestFragmentC;
 import com.php.demo.ui.fragment.TestFragmentD;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import butterknife.BindView;
 
 /**
@@ -36,6 +44,35 @@ public class HomeActivity extends MyActivity
 
     private BaseFragmentAdapter<MyLazyFragment> mPagerAdapter;
 
+    // 是否已经预热过
+    private static final AtomicBoolean PREWARMED = new AtomicBoolean();
+
+    /**
+     * 预热主页（一般在启动页中调用）
+     *
+     * 主线程空闲时在子线程中预加载主页和第一个页面的布局，主页创建时直接使用，
+     * 同时在子线程中解码第一个页面的大图进入资源缓存，主页创建时就不需要再从磁盘读取
+     */
+    public static void prewarm(Context context) {
+        if (!PREWARMED.compareAndSet(false, true)) {
+            return;
+        }
+        LayoutPreloader.preload(context, HomeActivity.class, R.layout.activity_home, R.layout.fragment_test_a);
+
+        final Context themeContext = new ContextThemeWrapper(context.getApplicationContext(), R.style.AppTheme);
+        Thread thread = new Thread("HomePrewarm") {
+
+            @Override
+            public void run() {
+                StartupTracer.beginSection("homePrewarm");
+                ContextCompat.getDrawable(themeContext, R.mipmap.bg_launcher);
+                StartupTracer.endSection("homePrewarm");
+            }
+        };
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
     @Override
     protected int getLayoutId() {
         return R.layout.activity_home;
@@ -57,16 +94,60 @@ public class HomeActivity extends MyActivity
 
     @Override
     protected void initData() {
+        StartupTracer.beginSection("homeInitData");
         mPagerAdapter = new BaseFragmentAdapter<>(this);
-        mPagerAdapter.addFragment(TestFragmentA.newInstance());
-        mPagerAdapter.addFragment(TestFragmentB.newInstance());
-        mPagerAdapter.addFragment(TestFragmentC.newInstance());
-        mPagerAdapter.addFragment(TestFragmentD.newInstance());
+        // 页面在第一次显示时才创建，启动时只会创建第一个页面
+        mPagerAdapter.addFragment(new BaseFragmentAdapter.FragmentFactory<TestFragmentA>() {
+
+            @Override
+            public TestFragmentA create() {
+                return TestFragmentA.newInstance();
+            }
+        });
+        mPagerAdapter.addFragment(new BaseFragmentAdapter.FragmentFactory<TestFragmentB>() {
+
+            @Override
+            public TestFragmentB create() {
+                return TestFragmentB.newInstance();
+            }
+        });
+        mPagerAdapter.addFragment(new BaseFragmentAdapter.FragmentFactory<TestFragmentC>() {
+
+            @Override
+            public TestFragmentC create() {
+                return TestFragmentC.newInstance();
+            }
+        });
+        mPagerAdapter.addFragment(new BaseFragmentAdapter.FragmentFactory<TestFragmentD>() {
+
+            @Override
+            public TestFragmentD create() {
+                return TestFragmentD.newInstance();
+            }
+        });
+        // 只保留相邻页面的布局，更远的页面销毁布局
+        mPagerAdapter.setRetainCount(1);
 
         mViewPager.setAdapter(mPagerAdapter);
-
-        // 限制页面数量
-        mViewPager.setOffscreenPageLimit(mPagerAdapter.getCount());
+        StartupTracer.endSection("homeInitData");
+
+        // 页面在第一次布局时创建，等页面绘制完成后再结束冷启动记录
+        mViewPager.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+
+            @Override
+            public boolean onPreDraw() {
+                mViewPager.getViewTreeObserver().removeOnPreDrawListener(this);
+                post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        StartupTracer.endPhase("home");
+                        StartupTracer.reportFullyDrawn(HomeActivity.this);
+                    }
+                });
+                return true;
+            }
+        });
     }
 
     /**
@@ -132,7 +213,7 @@ public class HomeActivity extends MyActivity
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
         // 回调当前 Fragment 的 onKeyDown 方法
-        if (mPagerAdapter.getCurrentFragment().onKeyDown(keyCode, event)) {
+        if (mPagerAdapter.getCurrentFragment() != null && mPagerAdapter.getCurrentFragment().onKeyDown(keyCode, event)) {
             return true;
         }
         return super.onKeyDown(keyCode, event);
@@ -7,6 +7,7 @@ import android.view.animation.RotateAnimation;
 import android.view.animation.ScaleAnimation;
 
 import com.gyf.barlibrary.BarHide;
+import com.php.base.StartupTracer;
 import com.php.demo.R;
 import com.php.demo.common.MyActivity;
 import com.php.permissions.OnPermission;
@@ -22,6 +23,9 @@ import butterknife.BindView;
  *    xxx
  *    time   : 2018/10/18
  *    desc   : 启动界面
+ *    illustration    :
+ *    ①已经授予过权限的用户直接进入主页，不播放启动动画
+ *    ②第一次启动时，申请权限和启动动画同时进行，同时在子线程中预热主页，动画结束并且授予了权限后进入主页
  */
 public class LauncherActivity extends MyActivity
         implements OnPermission, Animation.AnimationListener {
@@ -33,6 +37,21 @@ public class LauncherActivity extends MyActivity
     @BindView(R.id.iv_launcher_name)
     View mTextView;
 
+    // 启动动画是否已经结束
+    private boolean mAnimationEnd;
+    // 是否已经授予了权限
+    private boolean mPermissionGranted;
+
+    @Override
+    protected void initActivity() {
+        if (XXPermissions.isHasPermission(this, Permission.Group.STORAGE)) {
+            // 已经授予过权限的用户不需要等待启动动画，直接进入主页
+            startHome();
+            return;
+        }
+        super.initActivity();
+    }
+
     @Override
     protected int getLayoutId() {
         return R.layout.activity_launcher;
@@ -45,8 +64,12 @@ public class LauncherActivity extends MyActivity
 
     @Override
     protected void initView() {
+        // 在播放启动动画的同时预热主页
+        HomeActivity.prewarm(this);
         //初始化动画
         initStartAnim();
+        // 申请权限和启动动画同时进行
+        requestFilePermission();
         //设置状态栏和导航栏参数
         getStatusBarConfig()
                 .fullScreen(true)//有导航栏的情况下，activity全屏显示，也就是activity最下面被导航栏覆盖，不写默认非全屏
@@ -66,6 +89,7 @@ public class LauncherActivity extends MyActivity
      * 启动动画
      */
     private void initStartAnim() {
+        StartupTracer.beginPhase("launcherAnim");
         // 渐变展示启动屏
         AlphaAnimation aa = new AlphaAnimation(0.4f, 1.0f);
         aa.setDuration(ANIM_TIME * 2);
@@ -82,6 +106,7 @@ public class LauncherActivity extends MyActivity
     }
 
     private void requestFilePermission() {
+        StartupTracer.beginPhase("permission");
         XXPermissions.with(this)
                 .permission(Permission.Group.STORAGE)
                 .request(this);
@@ -93,8 +118,11 @@ public class LauncherActivity extends MyActivity
 
     @Override
     public void hasPermission(List<String> granted, boolean isAll) {
-        startActivity(HomeActivity.class);
-        finish();
+        StartupTracer.endPhase("permission");
+        mPermissionGranted = true;
+        if (mAnimationEnd) {
+            startHome();
+        }
     }
 
     @Override
@@ -113,6 +141,16 @@ public class LauncherActivity extends MyActivity
         }
     }
 
+    /**
+     * 进入主页
+     */
+    private void startHome() {
+        // 到主页内容加载完成为止
+        StartupTracer.beginPhase("home");
+        startActivity(HomeActivity.class);
+        finish();
+    }
+
     @Override
     public void onBackPressed() {
         //禁用返回键
@@ -144,7 +182,11 @@ public class LauncherActivity extends MyActivity
 
     @Override
     public void onAnimationEnd(Animation animation) {
-        requestFilePermission();
+        StartupTracer.endPhase("launcherAnim");
+        mAnimationEnd = true;
+        if (mPermissionGranted) {
+            startHome();
+        }
     }
 
     @Override
@@ -30,6 +30,9 @@ public class SettingActivity extends MyActivity
     @BindView(R.id.sb_setting_switch)
     SwitchButton mAutoSwitchView;
 
+    // 缓存统计或者清除任务
+    private CacheDataManager.CacheTask mCacheTask;
+
     @Override
     protected int getLayoutId() {
         return R.layout.activity_setting;
@@ -48,7 +51,7 @@ public class SettingActivity extends MyActivity
     @Override
     protected void initData() {
         // 获取应用缓存大小
-        mCleanCacheView.setRightText(CacheDataManager.getTotalCacheSize(this));
+        scanCacheSize();
 
         // 设置切换按钮的监听
         mAutoSwitchView.setOnCheckedChangeListener(this);
@@ -73,9 +76,20 @@ public class SettingActivity extends MyActivity
                 break;
             case R.id.sb_setting_cache: // 清空缓存
                 ImageLoader.clear(this);
-                CacheDataManager.clearAllCache(this);
-                // 重新获取应用缓存大小
-                mCleanCacheView.setRightText(CacheDataManager.getTotalCacheSize(this));
+                if (mCacheTask != null) {
+                    mCacheTask.cancel();
+                }
+                mCacheTask = CacheDataManager.clearCache(this, new CacheDataManager.OnCacheListener() {
+
+                    @Override
+                    public void onProgress(CacheDataManager.CacheSize size) {}
+
+                    @Override
+                    public void onComplete(CacheDataManager.CacheSize size) {
+                        // 重新获取应用缓存大小
+                        scanCacheSize();
+                    }
+                });
                 break;
             case R.id.sb_setting_exit: // 退出登录
                 startActivity(LoginActivity.class);
@@ -87,6 +101,35 @@ public class SettingActivity extends MyActivity
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        if (mCacheTask != null) {
+            mCacheTask.cancel();
+        }
+        super.onDestroy();
+    }
+
+    /**
+     * 在子线程中统计缓存大小，统计过程中会不断刷新
+     */
+    private void scanCacheSize() {
+        if (mCacheTask != null) {
+            mCacheTask.cancel();
+        }
+        mCacheTask = CacheDataManager.scanCache(this, new CacheDataManager.OnCacheListener() {
+
+            @Override
+            public void onProgress(CacheDataManager.CacheSize size) {
+                mCleanCacheView.setRightText(size.getFormatTotalSize());
+            }
+
+            @Override
+            public void onComplete(CacheDataManager.CacheSize size) {
+                mCleanCacheView.setRightText(size.getFormatTotalSize());
+            }
+        });
+    }
+
     /**
      * {@link SwitchButton.OnCheckedChangeListener}
      */
@@ -1,8 +1,10 @@
 package com.php.demo.ui.adapter;
 
 import android.app.Activity;
+import android.graphics.Bitmap;
 import android.support.annotation.NonNull;
 import android.support.v4.view.PagerAdapter;
+import android.util.DisplayMetrics;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -19,12 +21,22 @@ import java.util.List;
  */
 public class ImagePagerAdapter extends PagerAdapter implements View.OnClickListener {
 
+    // 缩略图比例，先显示缩略图再显示大图
+    private static final float THUMBNAIL = 0.1f;
+
     private Activity mActivity;
     private List<String> mData;
 
+    // 大图最多按屏幕尺寸解码，不需要解码原图
+    private final int mMaxWidth;
+    private final int mMaxHeight;
+
     public ImagePagerAdapter(Activity activity, List<String> data) {
         mActivity = activity;
         mData = data;
+        DisplayMetrics metrics = activity.getResources().getDisplayMetrics();
+        mMaxWidth = metrics.widthPixels;
+        mMaxHeight = metrics.heightPixels;
     }
 
     // 加载数量，自动回调
@@ -51,7 +63,7 @@ public class ImagePagerAdapter extends PagerAdapter implements View.OnClickListe
     public Object instantiateItem(@NonNull ViewGroup container, int position) {
         PhotoView view = new PhotoView(mActivity);
         view.setOnClickListener(this);
-        ImageLoader.loadImage(view, mData.get(position));
+        ImageLoader.loadImage(view, mData.get(position), mMaxWidth, mMaxHeight, Bitmap.Config.ARGB_8888, THUMBNAIL);
         // 将View添加到ViewPager
         container.addView(view);
         return view;
@@ -42,7 +42,13 @@ public abstract class BaseActivity extends AppCompatActivity {
 
     protected void initLayout() {
         if (getLayoutId() > 0) {
-            setContentView(getLayoutId());
+            // 有预加载好的布局就直接使用，见 LayoutPreloader
+            View view = LayoutPreloader.obtain(this, getLayoutId());
+            if (view != null) {
+                setContentView(view);
+            } else {
+                setContentView(getLayoutId());
+            }
         }
     }
 
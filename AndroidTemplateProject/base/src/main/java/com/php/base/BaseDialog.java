@@ -21,7 +21,6 @@ import android.support.v7.app.AppCompatDialog;
 import android.util.SparseArray;
 import android.util.SparseIntArray;
 import android.view.Gravity;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
@@ -437,7 +436,8 @@ public class BaseDialog extends AppCompatDialog implements
          * 设置布局
          */
         public B setContentView(@LayoutRes int layoutId) {
-            return setContentView(LayoutInflater.from(mContext).inflate(layoutId, null));
+            // 有预加载好的布局就直接使用，见 LayoutPreloader
+            return setContentView(LayoutPreloader.inflate(mContext, layoutId));
         }
         public B setContentView(@NonNull View view) {
             mContentView = view;
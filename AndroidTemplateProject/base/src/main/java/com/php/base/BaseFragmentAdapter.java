@@ -5,6 +5,9 @@ import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentPagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.util.SparseArray;
+import android.view.View;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
@@ -15,13 +18,55 @@ import java.util.List;
  *    xxx
  *    time   : 2018/10/18
  *    desc   : FragmentPagerAdapter 基类
+ *    illustration    :
+ *    ①通过 {@link FragmentFactory} 添加的页面在第一次显示时才创建，ViewPager 预加载的相邻页面在这之前只是一个空的占位，不会创建布局；
+ *    开始拖向某个占位页面时就会创建真正的页面（下一帧替换占位），所以滑动时看到的是正在创建的页面而不是空白，
+ *    页面的 onCreateView 和初始化会发生在拖动的过程中，第一次滑到复杂的页面时可能会有一帧的卡顿
+ *    ②{@link #setRetainCount(int)} 设置保留布局的相邻页面数量，离当前页面更远的页面会销毁布局，再次显示时重新创建；
+ *    页面的移除要等 {@link #finishUpdate(ViewGroup)} 提交事务后才真正执行，所以释放布局也放到事务提交之后
  */
 public class BaseFragmentAdapter<F extends Fragment> extends FragmentPagerAdapter {
 
-    private List<F> mFragmentSet = new ArrayList<>(); // Fragment集合
+    /** 不限制数量，被 ViewPager 移除的页面只销毁布局，{@link BaseLazyFragment} 会继续缓存布局 */
+    public static final int RETAIN_ALL = -1;
+
+    private List<FragmentFactory<? extends F>> mFactorySet = new ArrayList<>(); // Fragment工厂集合
+    private List<F> mFragmentSet = new ArrayList<>(); // 已经创建的Fragment集合
 
     private F mCurrentFragment; // 当前显示的Fragment
 
+    private final FragmentManager mManager;
+
+    // 已经显示过的页面
+    private final SparseArray<Boolean> mVisitedPages = new SparseArray<>();
+    // ViewPager 中还没有显示过的占位页面
+    private final SparseArray<Placeholder> mPlaceholders = new SparseArray<>();
+    // ViewPager 已经移除，但是在保留范围内没有销毁布局的页面
+    private final SparseArray<F> mRetainedFragments = new SparseArray<>();
+    // 等待事务提交后释放布局的页面
+    private final List<BaseLazyFragment> mPendingReleases = new ArrayList<>();
+
+    // 保留布局的相邻页面数量
+    private int mRetainCount = RETAIN_ALL;
+
+    // 已经添加了滑动监听的 ViewPager
+    private ViewPager mViewPager;
+    // 是否已经安排了替换占位页面的刷新
+    private boolean mRefreshPending;
+
+    // 拖向占位页面时提前创建真正的页面
+    private final ViewPager.OnPageChangeListener mPageChangeListener = new ViewPager.SimpleOnPageChangeListener() {
+
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            // 滑动过程中 position 和 position + 1 两个页面都是可见的
+            visit(position);
+            if (positionOffset > 0) {
+                visit(position + 1);
+            }
+        }
+    };
+
     public BaseFragmentAdapter(FragmentActivity activity) {
         this(activity.getSupportFragmentManager());
     }
@@ -32,33 +77,156 @@ public class BaseFragmentAdapter<F extends Fragment> extends FragmentPagerAdapte
 
     public BaseFragmentAdapter(FragmentManager manager) {
         super(manager);
+        mManager = manager;
     }
 
     @Override
     public F getItem(int position) {
-        return mFragmentSet.get(position);
+        F fragment = mFragmentSet.get(position);
+        if (fragment == null) {
+            fragment = mFactorySet.get(position).create();
+            mFragmentSet.set(position, fragment);
+        }
+        return fragment;
     }
 
     @Override
     public int getCount() {
-        return mFragmentSet.size();
+        return mFactorySet.size();
+    }
+
+    @Override
+    public void startUpdate(@NonNull ViewGroup container) {
+        super.startUpdate(container);
+        if (container instanceof ViewPager) {
+            if (mViewPager != container) {
+                if (mViewPager != null) {
+                    mViewPager.removeOnPageChangeListener(mPageChangeListener);
+                }
+                mViewPager = (ViewPager) container;
+                mViewPager.addOnPageChangeListener(mPageChangeListener);
+            }
+            // 直接切换页面（例如 setCurrentItem 不带动画）时不会经过拖动
+            visit(mViewPager.getCurrentItem());
+        }
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object instantiateItem(@NonNull ViewGroup container, int position) {
+        if (!isVisited(container, position)) {
+            Placeholder placeholder = new Placeholder(position);
+            mPlaceholders.put(position, placeholder);
+            return placeholder;
+        }
+
+        mRetainedFragments.remove(position);
+        F fragment = (F) super.instantiateItem(container, position);
+        // 被恢复的Fragment不会经过 getItem 创建
+        mFragmentSet.set(position, fragment);
+        return fragment;
+    }
+
+    @Override
+    public void destroyItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+        if (object instanceof Placeholder) {
+            mPlaceholders.remove(position);
+            return;
+        }
+
+        if (isRetained(container, position)) {
+            // 在保留范围内，先不销毁布局
+            mRetainedFragments.put(position, getItem(position));
+            return;
+        }
+        releaseItem(container, position, object);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public void setPrimaryItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+        if (object instanceof Placeholder) {
+            return;
+        }
+
         if (getCurrentFragment() != object) {
             // 记录当前的Fragment对象
             mCurrentFragment = (F) object;
         }
         super.setPrimaryItem(container, position, object);
+
+        // 当前页面改变了，之前保留的页面可能已经超出了保留范围
+        for (int i = mRetainedFragments.size() - 1; i >= 0; i--) {
+            int retainedPosition = mRetainedFragments.keyAt(i);
+            if (!isRetained(container, retainedPosition)) {
+                F fragment = mRetainedFragments.valueAt(i);
+                mRetainedFragments.removeAt(i);
+                releaseItem(container, retainedPosition, fragment);
+            }
+        }
+    }
+
+    @Override
+    public void finishUpdate(@NonNull ViewGroup container) {
+        super.finishUpdate(container);
+        // 事务已经提交，被移除的页面已经销毁了布局
+        for (BaseLazyFragment fragment : mPendingReleases) {
+            if (fragment.isDetached()) {
+                fragment.releaseView();
+            }
+        }
+        mPendingReleases.clear();
+    }
+
+    @Override
+    public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+        return !(object instanceof Placeholder) && super.isViewFromObject(view, object);
+    }
+
+    @Override
+    public int getItemPosition(@NonNull Object object) {
+        if (object instanceof Placeholder && mVisitedPages.get(((Placeholder) object).position) != null) {
+            // 占位页面已经被显示，替换成真正的页面
+            return POSITION_NONE;
+        }
+        return super.getItemPosition(object);
+    }
+
+    /**
+     * 添加一个已经创建好的Fragment
+     */
+    public void addFragment(final F fragment) {
+        addFragment(new FragmentFactory<F>() {
+
+            @Override
+            public F create() {
+                return fragment;
+            }
+        });
+        mFragmentSet.set(mFragmentSet.size() - 1, fragment);
     }
 
-    public void addFragment(F fragment) {
-        mFragmentSet.add(fragment);
+    /**
+     * 添加一个Fragment工厂，页面第一次显示时才会创建Fragment
+     */
+    public void addFragment(FragmentFactory<? extends F> factory) {
+        mFactorySet.add(factory);
+        mFragmentSet.add(null);
+    }
+
+    /**
+     * 设置保留布局的相邻页面数量，默认为 {@link #RETAIN_ALL}
+     *
+     * ViewPager 移除页面时，和当前页面的距离不超过这个数量的页面不会销毁布局，切换回来时不需要重新添加；
+     * 超过的会销毁布局，{@link BaseLazyFragment} 会同时释放缓存的布局，再次显示时重新创建布局和初始化
+     */
+    public void setRetainCount(int count) {
+        mRetainCount = count;
     }
 
     /**
-     * 获取Fragment集合
+     * 获取已经创建的Fragment集合，还没有创建的页面为 null
      */
     public List<F> getAllFragment() {
         return mFragmentSet;
@@ -70,4 +238,91 @@ public class BaseFragmentAdapter<F extends Fragment> extends FragmentPagerAdapte
     public F getCurrentFragment() {
         return mCurrentFragment;
     }
-}
\ No newline at end of file
+
+    /**
+     * 标记页面已经显示，如果还是占位就替换成真正的页面
+     */
+    private void visit(int position) {
+        if (mVisitedPages.get(position) != null || position >= getCount()) {
+            return;
+        }
+        mVisitedPages.put(position, true);
+        if (mPlaceholders.get(position) == null || mRefreshPending) {
+            return;
+        }
+        // 不能在 ViewPager 更新或者滑动的回调中刷新，等到下一帧再替换成真正的页面
+        mRefreshPending = true;
+        mViewPager.post(new Runnable() {
+
+            @Override
+            public void run() {
+                mRefreshPending = false;
+                notifyDataSetChanged();
+            }
+        });
+    }
+
+    /**
+     * 页面是否已经显示过，显示过的页面才会创建Fragment
+     */
+    private boolean isVisited(ViewGroup container, int position) {
+        if (mVisitedPages.get(position) != null) {
+            return true;
+        }
+        if (container instanceof ViewPager && ((ViewPager) container).getCurrentItem() == position
+                || mManager.findFragmentByTag(makeFragmentName(container.getId(), getItemId(position))) != null) {
+            // 当前页面或者是被恢复的页面
+            mVisitedPages.put(position, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 页面是否在保留范围内
+     */
+    private boolean isRetained(ViewGroup container, int position) {
+        return mRetainCount != RETAIN_ALL && container instanceof ViewPager
+                && Math.abs(position - ((ViewPager) container).getCurrentItem()) <= mRetainCount;
+    }
+
+    /**
+     * 销毁页面的布局，缓存的布局等事务提交后再释放，见 {@link #finishUpdate(ViewGroup)}
+     */
+    private void releaseItem(ViewGroup container, int position, Object object) {
+        super.destroyItem(container, position, object);
+        if (mRetainCount != RETAIN_ALL && object instanceof BaseLazyFragment) {
+            mPendingReleases.add((BaseLazyFragment) object);
+        }
+    }
+
+    /**
+     * 和 FragmentPagerAdapter 中生成 tag 的规则一致
+     */
+    private static String makeFragmentName(int viewId, long id) {
+        return "android:switcher:" + viewId + ":" + id;
+    }
+
+    /**
+     * Fragment 工厂
+     */
+    public interface FragmentFactory<F extends Fragment> {
+
+        /**
+         * 创建Fragment
+         */
+        F create();
+    }
+
+    /**
+     * 还没有显示过的页面的占位
+     */
+    private static final class Placeholder {
+
+        private final int position;
+
+        private Placeholder(int position) {
+            this.position = position;
+        }
+    }
+}
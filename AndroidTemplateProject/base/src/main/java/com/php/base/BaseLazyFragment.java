@@ -62,7 +62,11 @@ public abstract class BaseLazyFragment<A extends BaseActivity> extends Fragment
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
 
         if (mRootView == null && getLayoutId() > 0) {
-            mRootView = inflater.inflate(getLayoutId(), null);
+            // 有预加载好的布局就直接使用，见 LayoutPreloader
+            mRootView = LayoutPreloader.obtain(inflater.getContext(), getLayoutId());
+            if (mRootView == null) {
+                mRootView = inflater.inflate(getLayoutId(), null);
+            }
         }
 
         ViewGroup parent = (ViewGroup) mRootView.getParent();
@@ -135,6 +139,23 @@ public abstract class BaseLazyFragment<A extends BaseActivity> extends Fragment
      */
     protected void onRestart() {}
 
+    /**
+     * 释放缓存的布局，下次创建布局时会重新填充并且重新初始化（由 {@link BaseFragmentAdapter} 在页面离当前页面太远时调用）
+     */
+    void releaseView() {
+        if (mRootView == null) {
+            return;
+        }
+        onReleaseView();
+        mRootView = null;
+        isLazyLoad = false;
+    }
+
+    /**
+     * 缓存的布局被释放时回调，在这里释放和布局相关的资源
+     */
+    protected void onReleaseView() {}
+
     @Override
     public void onDetach() {
         super.onDetach();
@@ -4,11 +4,14 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.StringRes;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
@@ -19,6 +22,10 @@ import android.view.ViewGroup;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  *    author : xxx
@@ -28,11 +35,22 @@ import java.util.List;
  */
 public abstract class BaseRecyclerViewAdapter
         <T, VH extends BaseRecyclerViewAdapter.ViewHolder>
-                        extends RecyclerView.Adapter<VH> {
+                        extends RecyclerView.Adapter<VH>
+                        implements MemoryTrimDispatcher.OnTrimMemoryListener {
+
+    // 计算列表差异的线程池（所有适配器共用一个线程，空闲时会自动回收）
+    private static final Executor DIFF_EXECUTOR = new ThreadPoolExecutor(0, 1,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
 
     // 列表数据
     private List<T> mDataSet;
 
+    // 条目比较回调，用于 submitList 计算差异
+    private DiffUtil.ItemCallback<T> mDiffCallback;
+    // 最近一次提交差异计算的序号，用于丢弃过时的计算结果
+    private int mDiffGeneration;
+
     // RecyclerView 对象
     private RecyclerView mRecyclerView;
     // 上下文对象，注意不要在构造函数中使用
@@ -50,6 +68,21 @@ public abstract class BaseRecyclerViewAdapter
     // 条目子 View 长按事件
     private SparseArray<OnChildLongClickListener> mChildLongClickListeners;
 
+    // 共享的 ViewHolder 缓存池
+    private RecyclerView.RecycledViewPool mRecycledViewPool;
+
+    // 拖拽时单次滚动超过这个距离（dp）就认为滑动过快，暂停预加载
+    private static final int PRELOAD_PAUSE_DISTANCE = 48;
+    // 预加载的条目数量，0 表示不预加载
+    private int mPreloadCount;
+    // 已经预加载过的条目范围 [mPreloadStart, mPreloadEnd)
+    private int mPreloadStart;
+    private int mPreloadEnd;
+    // 最近一次的滚动方向是否为向后（向下或者向右）
+    private boolean mPreloadForward = true;
+    // 当前是否暂停了预加载
+    private boolean mPreloadPaused;
+
     public BaseRecyclerViewAdapter(Context context) {
         mContext = context;
     }
@@ -59,19 +92,168 @@ public abstract class BaseRecyclerViewAdapter
         return mDataSet == null ? 0 : mDataSet.size();
     }
 
+    /**
+     * 获取条目 ID，开启稳定 ID（{@link #setHasStableIds(boolean)}）后会使用 {@link #getItemKey(Object)} 作为 ID
+     */
     @Override
     public long getItemId(int position) {
+        if (hasStableIds()) {
+            return getItemKey(getItem(position));
+        }
         return position;
     }
 
+    /**
+     * 获取条目的唯一标识，需要使用稳定 ID 的子类重写此方法，并在构造函数中调用 setHasStableIds(true)
+     * 开启了稳定 ID 却没有重写此方法会抛出异常，否则所有条目的 ID 都一样，会导致动画和布局复用出错
+     *
+     * @param item              条目数据
+     */
+    protected long getItemKey(T item) {
+        throw new IllegalStateException(getClass().getName() + " has stable ids but does not override getItemKey");
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            onBindViewHolderPartially(holder, position, payloads);
+        }
+    }
+
+    /**
+     * 局部刷新条目，只需要更新有变化的 View，默认整个条目重新绑定
+     *
+     * @param payloads          局部刷新的标记，见 {@link #setItem(int, Object, Object)}，至少有一个
+     */
+    protected void onBindViewHolderPartially(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        onBindViewHolder(holder, position);
+    }
+
+    /**
+     * 合并所有 Integer 类型的局部刷新标记，方便子类按位判断需要刷新的 View
+     */
+    protected static int getPayloadFlags(List<Object> payloads) {
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                flags |= (Integer) payload;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * 设置共享的 ViewHolder 缓存池，多个列表（例如 ViewPager 中的多个 Fragment）共用一个缓存池可以减少布局的重复创建
+     * 需要在 RecyclerView.setAdapter() 之前设置
+     *
+     * 缓存池由这些列表所在的 Activity 创建和持有，各个 Fragment 在创建适配器时取出来设置；
+     * 缓存池只按条目类型区分 ViewHolder，共用缓存池的适配器必须保证相同类型的条目是同一种 ViewHolder，
+     * 默认的条目类型都是 0，所以建议使用 {@link DelegateRecyclerViewAdapter} 并以条目的布局 id 作为条目类型
+     */
+    public void setRecycledViewPool(RecyclerView.RecycledViewPool pool) {
+        checkRecyclerViewState();
+        mRecycledViewPool = pool;
+    }
+
     /**
      * 设置新的数据
      */
     public void setData(List<T> data) {
+        cancelPendingDiff();
+        resetPreload();
         mDataSet = data;
         notifyDataSetChanged();
     }
 
+    /**
+     * 设置条目比较回调，{@link #submitList(List)} 需要用到
+     */
+    public void setDiffCallback(DiffUtil.ItemCallback<T> callback) {
+        mDiffCallback = callback;
+    }
+
+    /**
+     * 提交新的数据，在子线程中计算和当前数据的差异，再回到主线程中只刷新有变化的条目
+     * 如果在计算完成之前又提交了新的数据或者修改了数据，旧的计算结果会被丢弃
+     * 注意：提交之后不要再修改传入的集合，需要修改请重新提交一个新的集合
+     */
+    public void submitList(final List<T> data) {
+        final int generation = ++mDiffGeneration;
+
+        if (data == mDataSet) {
+            return;
+        }
+
+        if (data == null || data.isEmpty() || mDataSet == null || mDataSet.isEmpty() || mDiffCallback == null) {
+            // 没有可以比较的数据，直接刷新
+            mDataSet = data;
+            resetPreload();
+            notifyDataSetChanged();
+            return;
+        }
+
+        // 当前数据的快照，避免计算过程中主线程修改数据
+        final List<T> oldData = new ArrayList<>(mDataSet);
+        final DiffUtil.ItemCallback<T> callback = mDiffCallback;
+        DIFF_EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+
+                    @Override
+                    public int getOldListSize() {
+                        return oldData.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return data.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        return callback.areItemsTheSame(oldData.get(oldItemPosition), data.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        return callback.areContentsTheSame(oldData.get(oldItemPosition), data.get(newItemPosition));
+                    }
+
+                    @Override
+                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                        return callback.getChangePayload(oldData.get(oldItemPosition), data.get(newItemPosition));
+                    }
+                });
+
+                MAIN_HANDLER.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        // 已经有更新的数据，丢弃本次结果
+                        if (generation != mDiffGeneration) {
+                            return;
+                        }
+                        mDataSet = data;
+                        // 条目的位置已经变了，重新计算预加载范围
+                        resetPreload();
+                        result.dispatchUpdatesTo(BaseRecyclerViewAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 直接修改数据之后，正在计算的差异已经过时，需要丢弃
+     */
+    private void cancelPendingDiff() {
+        mDiffGeneration++;
+    }
+
     /**
      * 获取当前数据
      */
@@ -88,6 +270,7 @@ public abstract class BaseRecyclerViewAdapter
         if (mDataSet == null || mDataSet.size() == 0) {
             setData(data);
         }else {
+            cancelPendingDiff();
             mDataSet.addAll(data);
             notifyItemRangeInserted(mDataSet.size() - data.size(), data.size());
         }
@@ -99,6 +282,8 @@ public abstract class BaseRecyclerViewAdapter
     public void clearData() {
         if (mDataSet == null || mDataSet.size() == 0) return;
 
+        cancelPendingDiff();
+        resetPreload();
         mDataSet.clear();
         notifyDataSetChanged();
     }
@@ -115,10 +300,23 @@ public abstract class BaseRecyclerViewAdapter
      */
     public void setItem(int position, T item) {
         if (mDataSet == null) mDataSet = new ArrayList<>();
+        cancelPendingDiff();
         mDataSet.set(position, item);
         notifyItemChanged(position);
     }
 
+    /**
+     * 更新某个位置上的数据，并且只局部刷新条目
+     *
+     * @param payload           局部刷新的标记，会传给 {@link #onBindViewHolderPartially(ViewHolder, int, List)}
+     */
+    public void setItem(int position, T item, Object payload) {
+        if (mDataSet == null) mDataSet = new ArrayList<>();
+        cancelPendingDiff();
+        mDataSet.set(position, item);
+        notifyItemChanged(position, payload);
+    }
+
     /**
      * 添加单条数据
      */
@@ -128,6 +326,7 @@ public abstract class BaseRecyclerViewAdapter
 
     public void addItem(int position, T item) {
         if (mDataSet == null) mDataSet = new ArrayList<>();
+        cancelPendingDiff();
 
         if (position < mDataSet.size()) {
             mDataSet.add(position, item);
@@ -149,6 +348,7 @@ public abstract class BaseRecyclerViewAdapter
     }
 
     public void removeItem(int position) {
+        cancelPendingDiff();
         //如果是在for循环删除后要记得i--
         mDataSet.remove(position);
         //告诉适配器删除数据的位置，会有动画效果
@@ -316,6 +516,11 @@ public abstract class BaseRecyclerViewAdapter
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
         mRecyclerView = recyclerView;
+        MemoryTrimDispatcher.register(this);
+        //使用共享的缓存池
+        if (mRecycledViewPool != null) {
+            mRecyclerView.setRecycledViewPool(mRecycledViewPool);
+        }
         //用户设置了滚动监听，需要给RecyclerView设置监听
         if (mScrollListener != null) {
             //添加滚动监听
@@ -336,9 +541,22 @@ public abstract class BaseRecyclerViewAdapter
         if (mScrollListener != null) {
             mRecyclerView.removeOnScrollListener(mScrollListener);
         }
+        MemoryTrimDispatcher.unregister(this);
         mRecyclerView = null;
     }
 
+    /**
+     * {@link MemoryTrimDispatcher.OnTrimMemoryListener}
+     */
+
+    @Override
+    public void onTrimMemory(int tier, int level) {
+        // 内存不足时清空缓存池中闲置的 ViewHolder，需要时再重新创建
+        if (tier >= MemoryTrimDispatcher.TIER_RUNNING_LOW && mRecyclerView != null) {
+            mRecyclerView.getRecycledViewPool().clear();
+        }
+    }
+
     /**
      * 获取默认的布局摆放器
      */
@@ -396,13 +614,80 @@ public abstract class BaseRecyclerViewAdapter
      */
     public void setOnScrollingListener(OnScrollingListener l) {
         mScrollingListener = l;
+        installScrollListener();
+    }
 
-        //如果当前已经有设置滚动监听，再次设置需要移除原有的监听器
-        if (mScrollListener == null) {
-            mScrollListener = new ScrollListener();
-        }else {
-            mRecyclerView.removeOnScrollListener(mScrollListener);
+    /**
+     * 设置滚动时预加载的条目数量，滚动时会提前对后面的条目回调 {@link #onPreloadItem(int, Object)}
+     *
+     * @param count             预加载的条目数量，0 表示不预加载
+     */
+    public void setPreloadCount(int count) {
+        mPreloadCount = count;
+        resetPreload();
+        installScrollListener();
+    }
+
+    /**
+     * 预加载某个条目需要的资源（例如图片），在主线程中回调，不要在这里做耗时操作
+     */
+    protected void onPreloadItem(int position, T item) {}
+
+    /**
+     * 数据或者滚动方向发生变化，清空已经预加载过的范围
+     */
+    private void resetPreload() {
+        mPreloadStart = Integer.MAX_VALUE;
+        mPreloadEnd = 0;
+    }
+
+    /**
+     * 预加载可见范围之外的条目
+     */
+    private void preload(RecyclerView recyclerView) {
+        int childCount = recyclerView.getChildCount();
+        if (mPreloadCount <= 0 || mPreloadPaused || childCount == 0 || mDataSet == null) {
+            return;
+        }
+
+        int first = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(0));
+        int last = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(childCount - 1));
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (first > last) {
+            // 反向布局
+            int temp = first;
+            first = last;
+            last = temp;
+        }
+
+        int count = mDataSet.size();
+        if (mPreloadForward) {
+            int start = Math.max(last + 1, mPreloadEnd);
+            int end = Math.min(last + 1 + mPreloadCount, count);
+            for (int i = start; i < end; i++) {
+                onPreloadItem(i, mDataSet.get(i));
+            }
+            mPreloadEnd = Math.max(mPreloadEnd, end);
+        } else {
+            int end = Math.min(first, mPreloadStart);
+            int start = Math.max(first - mPreloadCount, 0);
+            for (int i = end - 1; i >= start; i--) {
+                onPreloadItem(i, mDataSet.get(i));
+            }
+            mPreloadStart = Math.min(mPreloadStart, start);
+        }
+    }
+
+    /**
+     * 给 RecyclerView 设置滚动监听，已经设置过则不会重复设置
+     */
+    private void installScrollListener() {
+        if (mScrollListener != null) {
+            return;
         }
+        mScrollListener = new ScrollListener();
         //用户设置了滚动监听，需要给RecyclerView设置监听
         if (mRecyclerView != null) {
             //添加滚动监听
@@ -415,9 +700,35 @@ public abstract class BaseRecyclerViewAdapter
 
     private class ScrollListener extends RecyclerView.OnScrollListener {
 
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (mPreloadCount <= 0 || (dx == 0 && dy == 0)) {
+                return;
+            }
+
+            boolean forward = dx + dy > 0;
+            if (forward != mPreloadForward) {
+                mPreloadForward = forward;
+                resetPreload();
+            }
+
+            // 拖拽得太快时加载的图片马上就会被划走，等松手后再预加载
+            if (recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_DRAGGING) {
+                float distance = PRELOAD_PAUSE_DISTANCE * recyclerView.getResources().getDisplayMetrics().density;
+                mPreloadPaused = Math.abs(dx) + Math.abs(dy) > distance;
+            }
+            preload(recyclerView);
+        }
+
         @Override
         public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
 
+            if (newState != RecyclerView.SCROLL_STATE_DRAGGING && mPreloadPaused) {
+                // 松手后恢复预加载
+                mPreloadPaused = false;
+                preload(recyclerView);
+            }
+
             if (mScrollingListener == null) return;
 
             if (newState == RecyclerView.SCROLL_STATE_IDLE) {
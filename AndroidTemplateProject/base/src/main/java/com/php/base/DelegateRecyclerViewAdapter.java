@@ -0,0 +1,113 @@
+package com.php.base;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.ViewGroup;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/08
+ *    desc   : 多类型条目的 RecyclerView 适配器基类
+ *    illustration    :
+ *    ①每种条目类型通过 {@link #addItemDelegate(int, ItemDelegate)} 注册一个 {@link ItemDelegate}，由代理负责创建和绑定
+ *    ②绑定到 RecyclerView 时会按代理设置每种类型在缓存池中的数量，可以配合 {@link #setRecycledViewPool(RecyclerView.RecycledViewPool)} 使用
+ */
+public abstract class DelegateRecyclerViewAdapter
+        <T, VH extends BaseRecyclerViewAdapter.ViewHolder>
+                        extends BaseRecyclerViewAdapter<T, VH> {
+
+    // 多类型条目代理，key 为条目类型
+    private final SparseArray<ItemDelegate<T, VH>> mItemDelegates = new SparseArray<>();
+
+    public DelegateRecyclerViewAdapter(Context context) {
+        super(context);
+    }
+
+    /**
+     * 注册条目代理，需要在 RecyclerView.setAdapter() 之前注册
+     *
+     * @param viewType          条目类型，如果和其他列表共用缓存池，建议使用条目的布局 id，避免不同列表的类型冲突
+     * @param delegate          条目代理
+     */
+    public void addItemDelegate(int viewType, ItemDelegate<T, VH> delegate) {
+        if (getRecyclerView() != null) {
+            // 必须在 RecyclerView.setAdapter() 之前注册
+            throw new IllegalStateException("Binding adapters is not allowed before adding item delegates");
+        }
+        mItemDelegates.put(viewType, delegate);
+    }
+
+    /**
+     * 获取条目类型，由注册的条目代理决定
+     */
+    @Override
+    public int getItemViewType(int position) {
+        T item = getItem(position);
+        for (int i = 0; i < mItemDelegates.size(); i++) {
+            if (mItemDelegates.valueAt(i).isForViewType(item, position)) {
+                return mItemDelegates.keyAt(i);
+            }
+        }
+        throw new IllegalStateException("No item delegate found for position " + position);
+    }
+
+    @NonNull
+    @Override
+    public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return getItemDelegate(viewType).onCreateViewHolder(parent);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position) {
+        getItemDelegate(holder.getItemViewType()).onBindViewHolder(holder, getItem(position), position);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        //按条目代理设置每种类型的缓存数量
+        for (int i = 0; i < mItemDelegates.size(); i++) {
+            recyclerView.getRecycledViewPool().setMaxRecycledViews(mItemDelegates.keyAt(i), mItemDelegates.valueAt(i).getMaxRecycledViews());
+        }
+    }
+
+    private ItemDelegate<T, VH> getItemDelegate(int viewType) {
+        ItemDelegate<T, VH> delegate = mItemDelegates.get(viewType);
+        if (delegate == null) {
+            throw new IllegalStateException("No item delegate registered for view type " + viewType);
+        }
+        return delegate;
+    }
+
+    /**
+     * 多类型条目代理，每种类型的条目单独负责创建和绑定
+     */
+    public static abstract class ItemDelegate<T, VH extends RecyclerView.ViewHolder> {
+
+        /**
+         * 某个位置上的条目是否由当前代理处理
+         */
+        public abstract boolean isForViewType(T item, int position);
+
+        /**
+         * 创建条目 ViewHolder
+         */
+        @NonNull
+        public abstract VH onCreateViewHolder(@NonNull ViewGroup parent);
+
+        /**
+         * 绑定条目数据
+         */
+        public abstract void onBindViewHolder(@NonNull VH holder, T item, int position);
+
+        /**
+         * 缓存池中最多缓存的 ViewHolder 数量，条目较多或者较小的类型可以适当调大
+         */
+        public int getMaxRecycledViews() {
+            return 5;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.php.base;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.MutableContextWrapper;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatViewInflater;
+import android.support.v7.view.ContextThemeWrapper;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/17
+ *    desc   : 布局预加载池
+ *    illustration    :
+ *    ①通过 {@link #preload(Context, Class, int...)} 登记需要提前加载的布局和使用这个布局的界面，等主线程空闲时在子线程中填充布局放进池中，
+ *    {@link BaseActivity}、{@link BaseLazyFragment}、{@link BaseDialog.Builder} 填充布局时会先从池中取
+ *    ②布局使用登记界面在清单文件中的主题填充，只有所在的界面和登记的界面是同一个类时才会从池中取出；
+ *    在代码中调用 setTheme 修改主题的界面不要使用预加载
+ *    ③和 AsyncLayoutInflater 一样不经过界面的 AppCompatDelegate（它只能在主线程中使用），而是在子线程中使用一个只属于这个线程的
+ *    {@link AppCompatViewInflater} 把 TextView、ImageView 等控件替换成 AppCompat 的版本；控件上的 app:theme（Android 5.0 以下还包括 android:theme）不会生效，有这种控件的布局不要预加载
+ *    ④对话框的布局是用所在界面的 Context 填充的，所以登记的界面就是弹出对话框的界面
+ *    ⑤个别控件只能在主线程中创建，这种布局预加载会失败，取的时候会正常在主线程中填充，不影响使用
+ *    ⑥内存紧张或者配置变化（例如旋转屏幕、切换语言、字体大小）时会清空池中的布局，正在填充的布局也会被丢弃
+ */
+public final class LayoutPreloader implements MemoryTrimDispatcher.OnTrimMemoryListener, ComponentCallbacks {
+
+    // 每个布局最多缓存的数量
+    private static final int MAX_POOL_SIZE = 2;
+
+    private static final Executor EXECUTOR = new ThreadPoolExecutor(0, 1,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            return new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "LayoutPreloader");
+        }
+    });
+
+    private static final LayoutPreloader sPreloader = new LayoutPreloader();
+
+    // 已经填充好的布局
+    private final SparseArray<ArrayDeque<PooledView>> mPool = new SparseArray<>();
+    // 等待主线程空闲时加载的布局
+    private final List<Request> mPending = new ArrayList<>();
+    // 是否已经添加了主线程空闲监听
+    private boolean mIdleScheduled;
+    // 是否已经监听了配置变化
+    private boolean mConfigRegistered;
+    // 池中布局的版本，清空池时加一，填充前后版本不同的布局不会放进池中
+    private int mGeneration;
+
+    private LayoutPreloader() {
+        MemoryTrimDispatcher.register(this);
+    }
+
+    /**
+     * 登记需要预加载的布局（必须在主线程中调用）
+     *
+     * @param context           只会使用 ApplicationContext，不会持有界面
+     * @param consumer          使用这些布局的界面，使用它的主题填充，也只有这个界面才能取出
+     * @param layoutIds         需要预加载的布局
+     */
+    public static void preload(Context context, Class<? extends Activity> consumer, @LayoutRes int... layoutIds) {
+        Context applicationContext = context.getApplicationContext();
+        synchronized (sPreloader) {
+            if (!sPreloader.mConfigRegistered) {
+                sPreloader.mConfigRegistered = true;
+                applicationContext.registerComponentCallbacks(sPreloader);
+            }
+            for (int layoutId : layoutIds) {
+                sPreloader.mPending.add(new Request(applicationContext, consumer, layoutId));
+            }
+            if (sPreloader.mIdleScheduled) {
+                return;
+            }
+            sPreloader.mIdleScheduled = true;
+        }
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            @Override
+            public boolean queueIdle() {
+                sPreloader.dispatch();
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 从池中取出一个已经填充好的布局（必须在主线程中调用）
+     *
+     * @param context           布局真正使用的 Context
+     * @return                  池中没有这个界面登记的布局返回 null
+     */
+    @Nullable
+    public static View obtain(Context context, @LayoutRes int layoutId) {
+        Activity activity = findActivity(context);
+        if (activity == null) {
+            return null;
+        }
+
+        View view = null;
+        synchronized (sPreloader) {
+            ArrayDeque<PooledView> views = sPreloader.mPool.get(layoutId);
+            if (views != null) {
+                Iterator<PooledView> iterator = views.iterator();
+                while (iterator.hasNext()) {
+                    PooledView pooled = iterator.next();
+                    if (pooled.consumer == activity.getClass()) {
+                        iterator.remove();
+                        view = pooled.view;
+                        break;
+                    }
+                }
+            }
+        }
+        if (view != null && view.getContext() instanceof MutableContextWrapper) {
+            // 切换成真正的 Context，主题资源是一样的
+            ((MutableContextWrapper) view.getContext()).setBaseContext(context);
+        }
+        return view;
+    }
+
+    /**
+     * 填充布局，池中有的话直接使用
+     */
+    public static View inflate(Context context, @LayoutRes int layoutId) {
+        View view = obtain(context, layoutId);
+        if (view == null) {
+            view = LayoutInflater.from(context).inflate(layoutId, null);
+        }
+        return view;
+    }
+
+    /**
+     * 清空池中的布局
+     */
+    public static void clear() {
+        synchronized (sPreloader) {
+            sPreloader.mPool.clear();
+            sPreloader.mGeneration++;
+        }
+    }
+
+    /**
+     * 主线程空闲时把登记的布局交给子线程填充
+     */
+    private void dispatch() {
+        final List<Request> requests;
+        synchronized (this) {
+            requests = new ArrayList<>(mPending);
+            mPending.clear();
+            mIdleScheduled = false;
+        }
+        EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                // 只在这个线程中使用，不会和主线程共用 AppCompatViewInflater 中的状态
+                PreloadViewInflater viewInflater = new PreloadViewInflater();
+                for (Request request : requests) {
+                    if (isFull(request)) {
+                        continue;
+                    }
+
+                    int generation;
+                    synchronized (LayoutPreloader.this) {
+                        generation = mGeneration;
+                    }
+
+                    View view;
+                    try {
+                        Context context = request.context;
+                        // 使用界面在清单文件中的主题
+                        int theme = context.getPackageManager()
+                                .getActivityInfo(new ComponentName(context, request.consumer), 0).getThemeResource();
+                        // 通过可以切换的 Context 填充，取出时再切换成界面的 Context
+                        MutableContextWrapper wrapper = new MutableContextWrapper(new ContextThemeWrapper(context, theme));
+                        // 没有任何 Factory 的 LayoutInflater，只设置这个线程自己的 AppCompat 控件替换
+                        LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(wrapper);
+                        inflater.setFactory2(viewInflater);
+                        view = inflater.inflate(request.layoutId, null);
+                    } catch (PackageManager.NameNotFoundException e) {
+                        e.printStackTrace();
+                        continue;
+                    } catch (RuntimeException e) {
+                        // 布局中有只能在主线程中创建的控件
+                        e.printStackTrace();
+                        continue;
+                    }
+
+                    synchronized (LayoutPreloader.this) {
+                        if (generation != mGeneration) {
+                            // 填充的过程中配置变化了，布局已经过时
+                            continue;
+                        }
+                        ArrayDeque<PooledView> views = mPool.get(request.layoutId);
+                        if (views == null) {
+                            views = new ArrayDeque<>(MAX_POOL_SIZE);
+                            mPool.put(request.layoutId, views);
+                        }
+                        views.offer(new PooledView(view, request.consumer));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 池中这个界面登记的布局是否已经满了
+     */
+    private synchronized boolean isFull(Request request) {
+        ArrayDeque<PooledView> views = mPool.get(request.layoutId);
+        if (views == null) {
+            return false;
+        }
+        int count = 0;
+        for (PooledView pooled : views) {
+            if (pooled.consumer == request.consumer) {
+                count++;
+            }
+        }
+        return count >= MAX_POOL_SIZE;
+    }
+
+    /**
+     * 找到 Context 所在的界面
+     */
+    @Nullable
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * {@link MemoryTrimDispatcher.OnTrimMemoryListener}
+     */
+
+    @Override
+    public void onTrimMemory(int tier, int level) {
+        if (tier >= MemoryTrimDispatcher.TIER_RUNNING_LOW) {
+            clear();
+        }
+    }
+
+    /**
+     * {@link ComponentCallbacks}
+     */
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // 池中的布局是按旧的配置（尺寸、语言、字体大小）填充的
+        clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    private static final class Request {
+
+        private final Context context;
+        private final Class<? extends Activity> consumer;
+        private final int layoutId;
+
+        private Request(Context context, Class<? extends Activity> consumer, int layoutId) {
+            this.context = context;
+            this.consumer = consumer;
+            this.layoutId = layoutId;
+        }
+    }
+
+    private static final class PooledView {
+
+        private final View view;
+        private final Class<? extends Activity> consumer;
+
+        private PooledView(View view, Class<? extends Activity> consumer) {
+            this.view = view;
+            this.consumer = consumer;
+        }
+    }
+
+    /**
+     * 子线程中使用的 AppCompat 控件替换，和 AppCompatDelegate 替换的控件一致，每个填充线程单独创建一个
+     */
+    private static final class PreloadViewInflater extends AppCompatViewInflater implements LayoutInflater.Factory2 {
+
+        @Override
+        public View onCreateView(View parent, String name, Context context, AttributeSet attrs) {
+            return onCreateView(name, context, attrs);
+        }
+
+        @Override
+        public View onCreateView(String name, Context context, AttributeSet attrs) {
+            switch (name) {
+                case "TextView":
+                    return createTextView(context, attrs);
+                case "ImageView":
+                    return createImageView(context, attrs);
+                case "Button":
+                    return createButton(context, attrs);
+                case "EditText":
+                    return createEditText(context, attrs);
+                case "Spinner":
+                    return createSpinner(context, attrs);
+                case "ImageButton":
+                    return createImageButton(context, attrs);
+                case "CheckBox":
+                    return createCheckBox(context, attrs);
+                case "RadioButton":
+                    return createRadioButton(context, attrs);
+                case "CheckedTextView":
+                    return createCheckedTextView(context, attrs);
+                case "AutoCompleteTextView":
+                    return createAutoCompleteTextView(context, attrs);
+                case "MultiAutoCompleteTextView":
+                    return createMultiAutoCompleteTextView(context, attrs);
+                case "RatingBar":
+                    return createRatingBar(context, attrs);
+                case "SeekBar":
+                    return createSeekBar(context, attrs);
+                default:
+                    // 交给 LayoutInflater 正常创建
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.php.base;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.support.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/05
+ *    desc   : 内存紧张分发器
+ *    illustration    :
+ *    ①在 Application 中调用 {@link #install(Application)} 后，系统的 onTrimMemory 和 onLowMemory 会被归纳成三个等级分发给注册的对象：
+ *    界面不可见 {@link #TIER_UI_HIDDEN}、运行中内存不足 {@link #TIER_RUNNING_LOW}、内存严重不足 {@link #TIER_CRITICAL}
+ *    ②注册的对象只会被弱引用，不需要担心内存泄漏，但是不要注册匿名内部类，否则会马上被回收
+ */
+public final class MemoryTrimDispatcher implements ComponentCallbacks2 {
+
+    /** 界面不可见，可以释放只和界面有关的缓存 */
+    public static final int TIER_UI_HIDDEN = 1;
+    /** 运行中内存不足，释放可以重建的缓存 */
+    public static final int TIER_RUNNING_LOW = 2;
+    /** 内存严重不足或者已经进入后台，释放所有能释放的缓存 */
+    public static final int TIER_CRITICAL = 3;
+
+    private static final MemoryTrimDispatcher sDispatcher = new MemoryTrimDispatcher();
+
+    private static boolean sInstalled;
+
+    // 注册的对象
+    private final List<WeakReference<OnTrimMemoryListener>> mListeners = new ArrayList<>();
+
+    private MemoryTrimDispatcher() {}
+
+    /**
+     * 监听系统的内存回调（一般在 Application 中调用）
+     */
+    public static void install(Application application) {
+        if (sInstalled) {
+            return;
+        }
+        sInstalled = true;
+        application.registerComponentCallbacks(sDispatcher);
+    }
+
+    /**
+     * 注册内存紧张监听
+     */
+    public static void register(@NonNull OnTrimMemoryListener listener) {
+        synchronized (sDispatcher.mListeners) {
+            for (WeakReference<OnTrimMemoryListener> reference : sDispatcher.mListeners) {
+                if (reference.get() == listener) {
+                    return;
+                }
+            }
+            sDispatcher.mListeners.add(new WeakReference<>(listener));
+        }
+    }
+
+    /**
+     * 反注册内存紧张监听
+     */
+    public static void unregister(@NonNull OnTrimMemoryListener listener) {
+        synchronized (sDispatcher.mListeners) {
+            for (int i = sDispatcher.mListeners.size() - 1; i >= 0; i--) {
+                OnTrimMemoryListener l = sDispatcher.mListeners.get(i).get();
+                if (l == null || l == listener) {
+                    sDispatcher.mListeners.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把系统的内存等级归纳成分发的等级，不需要处理返回 0
+     */
+    private static int getTier(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            return TIER_CRITICAL;
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return TIER_UI_HIDDEN;
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return TIER_RUNNING_LOW;
+        }
+        return 0;
+    }
+
+    private void dispatch(int tier, int level) {
+        if (tier == 0) {
+            return;
+        }
+
+        List<OnTrimMemoryListener> listeners = new ArrayList<>();
+        synchronized (mListeners) {
+            for (int i = mListeners.size() - 1; i >= 0; i--) {
+                OnTrimMemoryListener listener = mListeners.get(i).get();
+                if (listener != null) {
+                    listeners.add(listener);
+                } else {
+                    // 已经被回收的对象顺便移除掉
+                    mListeners.remove(i);
+                }
+            }
+        }
+        // 在锁外回调，避免回调中注册或者反注册造成死锁
+        for (OnTrimMemoryListener listener : listeners) {
+            listener.onTrimMemory(tier, level);
+        }
+    }
+
+    /**
+     * {@link ComponentCallbacks2}
+     */
+
+    @Override
+    public void onTrimMemory(int level) {
+        dispatch(getTier(level), level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        dispatch(TIER_CRITICAL, TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {}
+
+    /**
+     * 内存紧张监听器
+     */
+    public interface OnTrimMemoryListener {
+
+        /**
+         * 内存紧张时在主线程回调
+         *
+         * @param tier              分发的等级，{@link #TIER_UI_HIDDEN}、{@link #TIER_RUNNING_LOW}、{@link #TIER_CRITICAL}
+         * @param level             系统原始的内存等级，见 {@link ComponentCallbacks2}
+         */
+        void onTrimMemory(int tier, int level);
+    }
+}
@@ -0,0 +1,315 @@
+package com.php.base;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/14
+ *    desc   : 启动任务管理器
+ *    illustration    :
+ *    ①在 Application.onCreate 中添加所有的 {@link StartupTask} 后调用 {@link #start()}，任务会按照依赖关系执行，
+ *    没有依赖关系的子线程任务在线程池中并行执行，主线程任务在 onCreate 中按依赖顺序执行
+ *    ②{@link StartupTask#WHEN_FIRST_FRAME} 和 {@link StartupTask#WHEN_IDLE} 的任务会推迟到第一个界面绘制之后，不占用冷启动的时间
+ *    ③每个任务的耗时都会输出到日志中，同时记录到 {@link StartupTracer} 的时间线中，方便对比优化前后的效果
+ */
+public final class StartupManager {
+
+    private static final String TAG = "StartupManager";
+
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    // 启动线程池的线程数量，留一个核心给主线程
+    private static final int THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final Application mApplication;
+
+    // 所有的任务，key 为任务名称
+    private final Map<String, Node> mNodes = new LinkedHashMap<>();
+
+    // onCreate 阶段等待在主线程中执行的任务
+    private final BlockingQueue<Node> mMainQueue = new LinkedBlockingQueue<>();
+
+    private ThreadPoolExecutor mExecutor;
+
+    // 等待子线程中阻塞任务完成的计数器
+    private CountDownLatch mBlockingLatch;
+
+    // 当前已经到达的执行时机
+    private volatile int mReleasedWhen = -1;
+    // 是否正在 onCreate 阶段
+    private volatile boolean mCreating;
+
+    public StartupManager(Application application) {
+        mApplication = application;
+    }
+
+    /**
+     * 添加启动任务
+     */
+    public StartupManager add(StartupTask task) {
+        if (mNodes.containsKey(task.getName())) {
+            throw new IllegalArgumentException("Startup task " + task.getName() + " already exists");
+        }
+        mNodes.put(task.getName(), new Node(task));
+        return this;
+    }
+
+    /**
+     * 开始执行启动任务（必须在 Application.onCreate 中调用）
+     */
+    public void start() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("Startup tasks must be started on the main thread");
+        }
+        long startTime = SystemClock.uptimeMillis();
+
+        int mainCount = 0;
+        int blockingCount = 0;
+        for (Node node : mNodes.values()) {
+            for (String dependency : node.task.getDependencies()) {
+                Node parent = mNodes.get(dependency);
+                if (parent == null) {
+                    throw new IllegalArgumentException(node.task.getName() + " depends on unknown task " + dependency);
+                }
+                if (parent.task.getWhen() > node.task.getWhen()) {
+                    throw new IllegalStateException(node.task.getName() + " cannot depend on the later task " + dependency);
+                }
+                parent.children.add(node);
+                node.pending.incrementAndGet();
+            }
+            if (node.task.getWhen() == StartupTask.WHEN_CREATE) {
+                if (node.task.isMainThread()) {
+                    mainCount++;
+                } else if (node.task.isBlocking()) {
+                    blockingCount++;
+                }
+            }
+        }
+        checkCycle();
+
+        mExecutor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "Startup-" + mCount.incrementAndGet());
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+        mBlockingLatch = new CountDownLatch(blockingCount);
+
+        mCreating = true;
+        release(StartupTask.WHEN_CREATE);
+
+        // 在当前线程中执行主线程任务，依赖的子线程任务还没完成时会在这里等待
+        for (int i = 0; i < mainCount; i++) {
+            try {
+                execute(mMainQueue.take());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        mCreating = false;
+
+        try {
+            mBlockingLatch.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        Log.i(TAG, "onCreate tasks finished in " + (SystemClock.uptimeMillis() - startTime) + "ms");
+
+        waitFirstFrame();
+    }
+
+    /**
+     * 检查是否有循环依赖
+     */
+    private void checkCycle() {
+        Map<Node, Integer> pending = new LinkedHashMap<>();
+        Queue<Node> queue = new LinkedList<>();
+        for (Node node : mNodes.values()) {
+            pending.put(node, node.pending.get());
+            if (node.pending.get() == 0) {
+                queue.offer(node);
+            }
+        }
+        int visited = 0;
+        Node node;
+        while ((node = queue.poll()) != null) {
+            visited++;
+            for (Node child : node.children) {
+                int count = pending.get(child) - 1;
+                pending.put(child, count);
+                if (count == 0) {
+                    queue.offer(child);
+                }
+            }
+        }
+        if (visited != mNodes.size()) {
+            throw new IllegalStateException("Startup tasks have circular dependencies");
+        }
+    }
+
+    /**
+     * 到达某个执行时机，执行这个时机中依赖已经完成的任务
+     */
+    private void release(int when) {
+        mReleasedWhen = when;
+        for (Node node : mNodes.values()) {
+            tryDispatch(node);
+        }
+    }
+
+    private void tryDispatch(Node node) {
+        if (node.pending.get() == 0 && node.task.getWhen() <= mReleasedWhen && node.dispatched.compareAndSet(false, true)) {
+            dispatch(node);
+        }
+    }
+
+    private void dispatch(final Node node) {
+        if (!node.task.isMainThread()) {
+            mExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    execute(node);
+                }
+            });
+        } else if (mCreating && node.task.getWhen() == StartupTask.WHEN_CREATE) {
+            mMainQueue.offer(node);
+        } else {
+            HANDLER.post(new Runnable() {
+
+                @Override
+                public void run() {
+                    execute(node);
+                }
+            });
+        }
+    }
+
+    private void execute(Node node) {
+        long startTime = SystemClock.uptimeMillis();
+        StartupTracer.beginSection("startup:" + node.task.getName());
+        try {
+            node.task.run(mApplication);
+        } finally {
+            StartupTracer.endSection("startup:" + node.task.getName());
+            Log.i(TAG, node.task.getName() + " finished in " + (SystemClock.uptimeMillis() - startTime)
+                    + "ms on " + Thread.currentThread().getName());
+            for (Node child : node.children) {
+                if (child.pending.decrementAndGet() == 0) {
+                    tryDispatch(child);
+                }
+            }
+            if (node.task.getWhen() == StartupTask.WHEN_CREATE && !node.task.isMainThread() && node.task.isBlocking()) {
+                mBlockingLatch.countDown();
+            }
+        }
+    }
+
+    /**
+     * 等待第一个界面绘制第一帧，然后执行推迟的任务
+     */
+    private void waitFirstFrame() {
+        mApplication.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+                mApplication.unregisterActivityLifecycleCallbacks(this);
+                final View decorView = activity.getWindow().getDecorView();
+                decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // 等这一帧绘制完成后再执行
+                        HANDLER.post(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                onFirstFrame();
+                            }
+                        });
+                        return true;
+                    }
+                });
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityStarted(Activity activity) {}
+
+            @Override
+            public void onActivityPaused(Activity activity) {}
+
+            @Override
+            public void onActivityStopped(Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+
+    private void onFirstFrame() {
+        release(StartupTask.WHEN_FIRST_FRAME);
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            @Override
+            public boolean queueIdle() {
+                release(StartupTask.WHEN_IDLE);
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 任务节点
+     */
+    private static final class Node {
+
+        private final StartupTask task;
+        // 依赖当前任务的任务
+        private final List<Node> children = new ArrayList<>();
+        // 还没有完成的依赖数量
+        private final AtomicInteger pending = new AtomicInteger();
+        // 是否已经分发执行
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        private Node(StartupTask task) {
+            this.task = task;
+        }
+    }
+}
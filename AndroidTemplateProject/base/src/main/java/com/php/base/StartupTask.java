@@ -0,0 +1,71 @@
+package com.php.base;
+
+import android.app.Application;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/14
+ *    desc   : 启动任务基类，配合 {@link StartupManager} 使用
+ *    illustration    :
+ *    ①每个任务声明自己依赖的任务名称、是否必须在主线程执行、以及执行时机
+ *    ②依赖的任务全部完成后才会执行，没有依赖关系的任务会在线程池中并行执行
+ */
+public abstract class StartupTask {
+
+    /** 在 Application.onCreate 中马上执行 */
+    public static final int WHEN_CREATE = 0;
+    /** 在第一个界面绘制完第一帧后执行 */
+    public static final int WHEN_FIRST_FRAME = 1;
+    /** 在第一帧之后主线程空闲时执行 */
+    public static final int WHEN_IDLE = 2;
+
+    private static final String[] NO_DEPENDENCIES = new String[0];
+
+    // 任务名称
+    private final String mName;
+
+    public StartupTask(String name) {
+        mName = name;
+    }
+
+    /**
+     * 执行任务
+     */
+    public abstract void run(Application application);
+
+    /**
+     * 获取任务名称
+     */
+    public final String getName() {
+        return mName;
+    }
+
+    /**
+     * 依赖的任务名称，这些任务完成后才会执行当前任务
+     */
+    public String[] getDependencies() {
+        return NO_DEPENDENCIES;
+    }
+
+    /**
+     * 是否必须在主线程中执行（例如需要创建 View 或者 Handler 的初始化），默认在子线程中执行
+     */
+    public boolean isMainThread() {
+        return false;
+    }
+
+    /**
+     * 执行时机，{@link #WHEN_CREATE}、{@link #WHEN_FIRST_FRAME}、{@link #WHEN_IDLE}
+     */
+    public int getWhen() {
+        return WHEN_CREATE;
+    }
+
+    /**
+     * 在子线程中执行时，Application.onCreate 是否需要等待这个任务完成（例如界面创建时马上要用到的框架）
+     */
+    public boolean isBlocking() {
+        return false;
+    }
+}
@@ -0,0 +1,318 @@
+package com.php.base;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.support.v4.content.ContextCompat;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/15
+ *    desc   : 冷启动耗时记录
+ *    illustration    :
+ *    ①{@link #beginSection(String)} 和 {@link #endSection(String)} 会同时写入 systrace，必须在同一个线程中成对调用；
+ *    跨线程或者跨回调的阶段（例如动画、权限申请）使用 {@link #beginPhase(String)} 和 {@link #endPhase(String)}，只记录到时间线中
+ *    ②{@link #install(Application, boolean)} 后会自动记录第一个界面的创建和第一帧绘制，界面内容加载完成后调用 {@link #reportFullyDrawn(Activity)} 结束记录
+ *    ③开启输出后，结束记录时会把时间线以 JSON 格式输出到日志和外部存储的 files/startup 目录中，一般只在 Debug 模式下开启
+ */
+public final class StartupTracer {
+
+    private static final String TAG = "StartupTracer";
+
+    /** 第一个界面创建 */
+    public static final String FIRST_ACTIVITY_CREATE = "firstActivityCreate";
+    /** 第一个界面绘制第一帧 */
+    public static final String FIRST_DRAW = "firstDraw";
+    /** 界面内容加载完成 */
+    public static final String FULLY_DRAWN = "fullyDrawn";
+
+    // 时间线的起点，Android 7.0 及以上使用进程的创建时间，以下默认为本类加载的时间，可以通过 setStartTime 提前
+    private static long sStartTime = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ?
+            Process.getStartElapsedRealtime() : SystemClock.elapsedRealtime();
+
+    // 记录的事件
+    private static final List<Event> EVENTS = new ArrayList<>();
+
+    // 是否已经结束记录
+    private static boolean sFinished;
+    // 结束记录时是否输出 JSON
+    private static boolean sDumpEnabled;
+
+    private StartupTracer() {}
+
+    /**
+     * 自动记录第一个界面的创建和第一帧绘制（一般在 Application 中调用）
+     *
+     * @param dumpEnabled       结束记录时是否输出 JSON
+     */
+    public static void install(Application application, boolean dumpEnabled) {
+        sDumpEnabled = dumpEnabled;
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+
+            private boolean mCreated;
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                if (!mCreated) {
+                    mCreated = true;
+                    mark(FIRST_ACTIVITY_CREATE);
+                }
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+                activity.getApplication().unregisterActivityLifecycleCallbacks(this);
+                final View decorView = activity.getWindow().getDecorView();
+                decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // 等这一帧绘制完成后再记录
+                        new Handler(Looper.getMainLooper()).postAtFrontOfQueue(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                mark(FIRST_DRAW);
+                            }
+                        });
+                        return true;
+                    }
+                });
+            }
+
+            @Override
+            public void onActivityStarted(Activity activity) {}
+
+            @Override
+            public void onActivityPaused(Activity activity) {}
+
+            @Override
+            public void onActivityStopped(Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+
+    /**
+     * 设置时间线的起点（Android 7.0 以下有效，以上使用进程的创建时间）
+     *
+     * 本类可能不在主 dex 中，一般在 Application.attachBaseContext 中 MultiDex 安装之前记录时间，安装之后再传进来，
+     * 必须在记录任何事件之前调用
+     *
+     * @param startTime         起点时间，{@link SystemClock#elapsedRealtime()}
+     */
+    public static synchronized void setStartTime(long startTime) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N || !EVENTS.isEmpty()) {
+            return;
+        }
+        sStartTime = startTime;
+    }
+
+    /**
+     * 开始一个同步的阶段，会同时写入 systrace
+     */
+    public static void beginSection(String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+        beginPhase(name);
+    }
+
+    /**
+     * 结束一个同步的阶段，必须和 {@link #beginSection(String)} 在同一个线程中调用
+     */
+    public static void endSection(String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+        endPhase(name);
+    }
+
+    /**
+     * 开始一个可以跨线程的阶段，同名的阶段只记录第一次
+     */
+    public static synchronized void beginPhase(String name) {
+        if (sFinished || findEvent(name) != null) {
+            return;
+        }
+        EVENTS.add(new Event(name, SystemClock.elapsedRealtime() - sStartTime, Thread.currentThread().getName()));
+    }
+
+    /**
+     * 结束一个可以跨线程的阶段
+     */
+    public static synchronized void endPhase(String name) {
+        if (sFinished) {
+            return;
+        }
+        Event event = findEvent(name);
+        if (event != null && event.end < 0) {
+            event.end = SystemClock.elapsedRealtime() - sStartTime;
+        }
+    }
+
+    /**
+     * 记录一个已经结束的阶段，用于本类还不能加载时（例如 MultiDex 安装前）的阶段
+     *
+     * @param startTime         开始时间，{@link SystemClock#elapsedRealtime()}
+     * @param endTime           结束时间，{@link SystemClock#elapsedRealtime()}
+     */
+    public static synchronized void record(String name, long startTime, long endTime) {
+        if (sFinished || findEvent(name) != null) {
+            return;
+        }
+        Event event = new Event(name, startTime - sStartTime, Thread.currentThread().getName());
+        event.end = endTime - sStartTime;
+        EVENTS.add(event);
+    }
+
+    /**
+     * 记录一个时间点
+     */
+    public static synchronized void mark(String name) {
+        beginPhase(name);
+        endPhase(name);
+    }
+
+    /**
+     * 界面内容已经加载完成，结束记录
+     */
+    public static void reportFullyDrawn(Activity activity) {
+        synchronized (StartupTracer.class) {
+            if (sFinished) {
+                return;
+            }
+            mark(FULLY_DRAWN);
+            sFinished = true;
+        }
+
+        // 让系统也输出 Fully drawn 的耗时，Android 4.4 上没有 UPDATE_DEVICE_STATS 权限调用会抛出 SecurityException
+        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.KITKAT || Build.VERSION.SDK_INT == Build.VERSION_CODES.KITKAT
+                && ContextCompat.checkSelfPermission(activity, Manifest.permission.UPDATE_DEVICE_STATS) == PackageManager.PERMISSION_GRANTED) {
+            activity.reportFullyDrawn();
+        }
+
+        if (sDumpEnabled) {
+            dump(activity.getApplicationContext());
+        }
+    }
+
+    /**
+     * 获取某个阶段的耗时，没有记录或者还没有结束返回 -1
+     */
+    public static synchronized long getDuration(String name) {
+        Event event = findEvent(name);
+        return event != null && event.end >= 0 ? event.end - event.start : -1;
+    }
+
+    /**
+     * 把时间线转换成 JSON
+     */
+    public static synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            JSONArray events = new JSONArray();
+            for (Event event : EVENTS) {
+                JSONObject item = new JSONObject();
+                item.put("name", event.name);
+                item.put("thread", event.thread);
+                item.put("start", event.start);
+                item.put("duration", event.end >= 0 ? event.end - event.start : -1);
+                events.put(item);
+            }
+            json.put("sdk", Build.VERSION.SDK_INT);
+            json.put("device", Build.MODEL);
+            json.put("fromProcessStart", Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+            Event fullyDrawn = findEvent(FULLY_DRAWN);
+            json.put("total", fullyDrawn != null ? fullyDrawn.start : -1);
+            json.put("events", events);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return json;
+    }
+
+    /**
+     * 把时间线输出到日志和文件中
+     */
+    private static void dump(final Context context) {
+        final String json = toJson().toString();
+        Log.i(TAG, json);
+        new Thread(TAG) {
+
+            @Override
+            public void run() {
+                File directory = context.getExternalFilesDir("startup");
+                if (directory == null) {
+                    return;
+                }
+                FileOutputStream outputStream = null;
+                try {
+                    outputStream = new FileOutputStream(new File(directory, "startup_" + System.currentTimeMillis() + ".json"));
+                    outputStream.write(json.getBytes("UTF-8"));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    if (outputStream != null) {
+                        try {
+                            outputStream.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        }.start();
+    }
+
+    private static Event findEvent(String name) {
+        for (Event event : EVENTS) {
+            if (event.name.equals(name)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private static final class Event {
+
+        private final String name;
+        private final long start;
+        private final String thread;
+        private long end = -1;
+
+        private Event(String name, long start, String thread) {
+            this.name = name;
+            this.start = start;
+            this.thread = thread;
+        }
+    }
+}
@@ -3,31 +3,67 @@ package com.php.toast;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.widget.Toast;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *    desc   : Toast 显示处理类
+ *    illustration    :
+ *    ①任意线程都可以添加吐司，添加时只会放进一个无锁队列，去重、限流、排队都在主线程中处理，不需要加锁
+ *    ②同样的文本在去重时间内只显示一次；同一个 key 的吐司在限流时间内只显示一次，排队中的会被替换成最新的文本
+ *    ③重要的吐司（例如错误提示）单独排队，优先于普通吐司显示，不会因为普通吐司太多被挤掉
  */
 final class ToastHandler extends Handler {
 
     static final int SHORT_DURATION_TIMEOUT = 2000; // 短吐司显示的时长
     static final int LONG_DURATION_TIMEOUT = 3500; // 长吐司显示的时长
 
+    static final int PRIORITY_NORMAL = 0; // 普通吐司
+    static final int PRIORITY_HIGH = 1; // 重要吐司
+
     private static final int TYPE_SHOW = 1; // 显示吐司
     private static final int TYPE_CONTINUE = 2; // 继续显示
     private static final int TYPE_CANCEL = 3; // 取消显示
 
-    // 最大吐司的容量
+    // 每个队列最大吐司的容量
     private static final int MAX_TOAST_CAPACITY = 5;
 
-    // 吐司队列
-    private volatile Queue<CharSequence> mQueue = new ArrayBlockingQueue<>(MAX_TOAST_CAPACITY);
+    // 相同文本的去重时间
+    private static final long DEDUP_WINDOW = 2000;
+    // 相同 key 的限流时间
+    private static final long RATE_LIMIT_INTERVAL = 3000;
+
+    // 新添加的吐司，任意线程写入，主线程读取
+    private final Queue<ToastMessage> mIncoming = new ConcurrentLinkedQueue<>();
+
+    // 以下只在主线程中访问
+    // 重要吐司队列
+    private final ArrayDeque<ToastMessage> mHighQueue = new ArrayDeque<>(MAX_TOAST_CAPACITY);
+    // 普通吐司队列
+    private final ArrayDeque<ToastMessage> mNormalQueue = new ArrayDeque<>(MAX_TOAST_CAPACITY);
+    // 每个文本最近一次添加的时间
+    private final Map<String, Long> mTextTimes = new HashMap<>();
+    // 每个 key 最近一次显示的时间
+    private final Map<String, Long> mKeyTimes = new HashMap<>();
+    // 正在显示的吐司
+    private ToastMessage mCurrent;
 
     // 当前是否正在执行显示操作
-    private volatile boolean isShow;
+    private final AtomicBoolean mShowing = new AtomicBoolean();
+
+    // 被丢弃的吐司数量（队列已满或者被限流）
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+    // 被合并的吐司数量（重复的文本或者被同一个 key 的新文本替换）
+    private final AtomicInteger mCoalescedCount = new AtomicInteger();
 
     // 吐司对象
     private final Toast mToast;
@@ -37,58 +73,68 @@ final class ToastHandler extends Handler {
         mToast = toast;
     }
 
-    void add(CharSequence s) {
-        if (mQueue.isEmpty() || !mQueue.contains(s)) {
-            // 添加一个元素并返回true，如果队列已满，则返回false
-            if (!mQueue.offer(s)) {
-                // 移除队列头部元素并添加一个新的元素
-                mQueue.poll();
-                mQueue.offer(s);
-            }
-        }
+    /**
+     * 添加一个吐司（可以在任意线程调用）
+     *
+     * @param priority          优先级，{@link #PRIORITY_NORMAL} 或者 {@link #PRIORITY_HIGH}
+     * @param key               限流的 key，为 null 则使用文本
+     */
+    void add(CharSequence s, int priority, String key) {
+        mIncoming.offer(new ToastMessage(s, priority, key != null ? key : s.toString(), SystemClock.uptimeMillis()));
     }
 
     void show() {
-        if (!isShow) {
-            isShow = true;
+        if (mShowing.compareAndSet(false, true)) {
             sendEmptyMessage(TYPE_SHOW);
         }
     }
 
     void cancel() {
-        if (isShow) {
-            isShow = false;
-            sendEmptyMessage(TYPE_CANCEL);
-        }
+        sendEmptyMessage(TYPE_CANCEL);
+    }
+
+    int getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    int getCoalescedCount() {
+        return mCoalescedCount.get();
     }
 
     @Override
     public void handleMessage(Message msg) {
         switch (msg.what) {
             case TYPE_SHOW:
-                // 返回队列头部的元素，如果队列为空，则返回null
-                CharSequence text = mQueue.peek();
-                if (text != null) {
-                    mToast.setText(text);
+                drainIncoming();
+                // 重要吐司优先显示
+                mCurrent = mHighQueue.isEmpty() ? mNormalQueue.poll() : mHighQueue.poll();
+                if (mCurrent != null) {
+                    mKeyTimes.put(mCurrent.key, SystemClock.uptimeMillis());
+                    mToast.setText(mCurrent.text);
                     mToast.show();
                     // 等这个 Toast 显示完后再继续显示
-                    sendEmptyMessageDelayed(TYPE_CONTINUE, getToastDuration(text) + 1000);
-                }else {
-                    isShow = false;
+                    sendEmptyMessageDelayed(TYPE_CONTINUE, getToastDuration(mCurrent.text) + 1000);
+                } else {
+                    finishShowing();
                 }
                 break;
             case TYPE_CONTINUE:
-                // 移除并返问队列头部的元素，如果队列为空，则返回null
-                mQueue.poll();
-                if (!mQueue.isEmpty()) {
+                mCurrent = null;
+                drainIncoming();
+                if (!mHighQueue.isEmpty() || !mNormalQueue.isEmpty()) {
                     sendEmptyMessage(TYPE_SHOW);
-                }else {
-                    isShow = false;
+                } else {
+                    finishShowing();
                 }
                 break;
             case TYPE_CANCEL:
-                isShow = false;
-                mQueue.clear();
+                removeMessages(TYPE_SHOW);
+                removeMessages(TYPE_CONTINUE);
+                mIncoming.clear();
+                mHighQueue.clear();
+                mNormalQueue.clear();
+                mCurrent = null;
+                mShowing.set(false);
                 mToast.cancel();
                 break;
             default:
@@ -96,6 +142,77 @@ final class ToastHandler extends Handler {
         }
     }
 
+    /**
+     * 队列都空了，结束显示；如果这时其他线程刚好添加了吐司，重新开始显示
+     */
+    private void finishShowing() {
+        mShowing.set(false);
+        if (!mIncoming.isEmpty()) {
+            show();
+        }
+    }
+
+    /**
+     * 把新添加的吐司进行去重、限流后放进对应的队列
+     */
+    private void drainIncoming() {
+        ToastMessage message;
+        while ((message = mIncoming.poll()) != null) {
+            enqueue(message);
+        }
+    }
+
+    private void enqueue(ToastMessage message) {
+        String text = message.text.toString();
+        Long textTime = mTextTimes.get(text);
+        if (textTime != null && message.time - textTime < DEDUP_WINDOW) {
+            // 去重时间内重复的文本
+            mCoalescedCount.incrementAndGet();
+            return;
+        }
+        mTextTimes.put(text, message.time);
+        if (mTextTimes.size() > MAX_TOAST_CAPACITY * 4) {
+            removeExpired(mTextTimes, message.time - DEDUP_WINDOW);
+        }
+
+        ArrayDeque<ToastMessage> queue = message.priority == PRIORITY_HIGH ? mHighQueue : mNormalQueue;
+
+        // 同一个 key 的吐司已经在排队，替换成最新的文本
+        for (ToastMessage queued : queue) {
+            if (queued.key.equals(message.key)) {
+                queued.text = message.text;
+                mCoalescedCount.incrementAndGet();
+                return;
+            }
+        }
+
+        Long keyTime = mKeyTimes.get(message.key);
+        if (keyTime != null && message.time - keyTime < RATE_LIMIT_INTERVAL) {
+            // 限流时间内同一个 key 已经显示过了
+            mDroppedCount.incrementAndGet();
+            return;
+        }
+        if (mKeyTimes.size() > MAX_TOAST_CAPACITY * 4) {
+            removeExpired(mKeyTimes, message.time - RATE_LIMIT_INTERVAL);
+        }
+
+        if (queue.size() >= MAX_TOAST_CAPACITY) {
+            // 队列已满，丢弃最旧的一个
+            queue.poll();
+            mDroppedCount.incrementAndGet();
+        }
+        queue.offer(message);
+    }
+
+    private static void removeExpired(Map<String, Long> times, long deadline) {
+        Iterator<Map.Entry<String, Long>> iterator = times.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() < deadline) {
+                iterator.remove();
+            }
+        }
+    }
+
     /**
      * 根据文本来获取吐司的显示时间
      */
@@ -103,4 +220,22 @@ final class ToastHandler extends Handler {
         // 如果显示的文字超过了10个就显示长吐司，否则显示短吐司
         return text.length() > 20 ? LONG_DURATION_TIMEOUT : SHORT_DURATION_TIMEOUT;
     }
-}
\ No newline at end of file
+
+    /**
+     * 吐司消息
+     */
+    private static final class ToastMessage {
+
+        private CharSequence text;
+        private final int priority;
+        private final String key;
+        private final long time;
+
+        private ToastMessage(CharSequence text, int priority, String key, long time) {
+            this.text = text;
+            this.priority = priority;
+            this.key = key;
+            this.time = time;
+        }
+    }
+}
@@ -27,6 +27,11 @@ import java.lang.reflect.Method;
  */
 public final class ToastUtils {
 
+    /** 普通吐司 */
+    public static final int PRIORITY_NORMAL = ToastHandler.PRIORITY_NORMAL;
+    /** 重要吐司（例如错误提示），优先于普通吐司显示 */
+    public static final int PRIORITY_HIGH = ToastHandler.PRIORITY_HIGH;
+
     private static ToastHandler sToastHandler;
 
     private static IToastStyle sDefaultStyle;
@@ -113,15 +118,42 @@ public final class ToastUtils {
      * @param text      需要显示的文本
      */
     public static void show(CharSequence text) {
+        show(text, PRIORITY_NORMAL, null);
+    }
+
+    /**
+     * 显示一个吐司（可以在任意线程调用）
+     *
+     * @param text      需要显示的文本
+     * @param priority  优先级，{@link #PRIORITY_NORMAL} 或者 {@link #PRIORITY_HIGH}
+     * @param key       限流的 key，同一个 key 的吐司在短时间内只会显示一次，为 null 则使用文本
+     */
+    public static void show(CharSequence text, int priority, String key) {
 
         checkToastState();
 
         if (text == null || text.equals("")) return;
 
-        sToastHandler.add(text);
+        sToastHandler.add(text, priority, key);
         sToastHandler.show();
     }
 
+    /**
+     * 获取因为队列已满或者限流被丢弃的吐司数量
+     */
+    public static int getDroppedCount() {
+        checkToastState();
+        return sToastHandler.getDroppedCount();
+    }
+
+    /**
+     * 获取因为重复被合并的吐司数量
+     */
+    public static int getCoalescedCount() {
+        checkToastState();
+        return sToastHandler.getCoalescedCount();
+    }
+
     /**
      * 取消吐司的显示
      */
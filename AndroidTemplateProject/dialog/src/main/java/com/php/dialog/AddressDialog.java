@@ -1,5 +1,6 @@
 package com.php.dialog;
 
+import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.os.Build;
@@ -7,27 +8,26 @@ import android.support.annotation.NonNull;
 import android.support.design.widget.TabLayout;
 import android.support.v4.app.FragmentActivity;
 import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
+import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.php.base.BaseDialog;
 import com.php.base.BaseDialogFragment;
 import com.php.base.BaseRecyclerViewAdapter;
+import com.php.base.LayoutPreloader;
+import com.php.dialog.region.Region;
+import com.php.dialog.region.RegionRepository;
+import com.php.dialog.region.RegionSearchIndex;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,28 +37,44 @@ import java.util.List;
  *    desc   : 省市区选择对话框
  *    illustration    :
  *    ①网上别人这种三级联动的对话框，加载会非常消耗内存，省市区的数据文件是100K，一次解析会产生数以万计的对象，
- *    所以特别进行了优化，不会全部解析出来，选择后的时候才会进行下一级列表的解析，见dialog模块的province.json文件
+ *    所以特别进行了优化，构建时会把 dialog 模块的 province.json 转换成二进制索引，打开对话框时直接内存映射，不需要解析 Json
+ *    数据由 {@link RegionRepository} 统一加载，建议在 Application 中调用 {@link RegionRepository#init} 提前在子线程中预加载
  *    ②特别处理：省市区对话框如果选择的省份是直辖市会直接跳到县级区域，会直接跳过选择城市。
+ *    ③支持输入名称或者拼音首字母搜索，点击搜索结果会直接选中对应的省、市、区，见 {@link RegionSearchIndex}
  */
 public final class AddressDialog {
 
+    /**
+     * 在主线程空闲时预加载对话框的布局（在可能弹出这个对话框的界面中调用，布局只会给这个界面使用）
+     */
+    public static void preload(Activity activity) {
+        LayoutPreloader.preload(activity, activity.getClass(), R.layout.dialog_address);
+    }
+
     public static final class Builder
             extends BaseDialogFragment.Builder<WaitDialog.Builder>
             implements BaseRecyclerViewAdapter.OnItemClickListener,
-            View.OnClickListener, TabLayout.BaseOnTabSelectedListener, Runnable {
+            View.OnClickListener, TabLayout.BaseOnTabSelectedListener, Runnable,
+            RegionRepository.OnLoadListener, TextWatcher {
+
+        // 搜索结果最多显示的数量
+        private static final int SEARCH_LIMIT = 50;
 
         private TextView mTitleView;
         private ImageView mCloseView;
         private TabLayout mTabLayout;
+        private EditText mSearchView;
 
         private RecyclerView mRecyclerView1;
         private RecyclerView mRecyclerView2;
         private RecyclerView mRecyclerView3;
+        private RecyclerView mSearchRecyclerView;
         private ImageView mHintView;
 
         private AddressDialogAdapter mAdapter1;
         private AddressDialogAdapter mAdapter2;
         private AddressDialogAdapter mAdapter3;
+        private AddressDialogAdapter mSearchAdapter;
 
         private OnListener mListener;
 
@@ -68,6 +84,12 @@ public final class AddressDialog {
 
         private boolean mIgnoreArea;
 
+        private RegionRepository mRepository;
+
+        // 数据还没有加载完成时设置的默认省份和城市
+        private String mPendingProvince;
+        private String mPendingCity;
+
         public Builder(FragmentActivity activity) {
             super(activity);
 
@@ -83,31 +105,47 @@ public final class AddressDialog {
             mTitleView = findViewById(R.id.tv_dialog_address_title);
             mCloseView = findViewById(R.id.iv_dialog_address_closer);
             mTabLayout = findViewById(R.id.tb_dialog_address_tab);
+            mSearchView = findViewById(R.id.et_dialog_address_search);
 
             mRecyclerView1 = findViewById(R.id.rv_dialog_address_list1);
             mRecyclerView2 = findViewById(R.id.rv_dialog_address_list2);
             mRecyclerView3 = findViewById(R.id.rv_dialog_address_list3);
+            mSearchRecyclerView = findViewById(R.id.rv_dialog_address_search);
             mHintView = findViewById(R.id.iv_dialog_address_hint);
 
             mAdapter1 = new AddressDialogAdapter(getContext());
             mAdapter2 = new AddressDialogAdapter(getContext());
             mAdapter3 = new AddressDialogAdapter(getContext());
+            mSearchAdapter = new AddressDialogAdapter(getContext());
+            mSearchAdapter.setShowPath(true);
 
             mCloseView.setOnClickListener(this);
+            mSearchView.addTextChangedListener(this);
 
             mAdapter1.setOnItemClickListener(this);
             mAdapter2.setOnItemClickListener(this);
             mAdapter3.setOnItemClickListener(this);
+            mSearchAdapter.setOnItemClickListener(this);
 
             mRecyclerView1.setAdapter(mAdapter1);
             mRecyclerView2.setAdapter(mAdapter2);
             mRecyclerView3.setAdapter(mAdapter3);
+            mSearchRecyclerView.setAdapter(mSearchAdapter);
 
             mTabLayout.addTab(mTabLayout.newTab().setText(getText(R.string.dialog_select_hint)), true);
             mTabLayout.addOnTabSelectedListener(this);
 
-            // 显示省份列表
-            mAdapter1.setData(ProvinceUtils.getProvinceList(getContext()));
+            // 对话框无论以什么方式关闭（返回键、点击外部、延迟关闭）都移除加载监听，避免 Builder 被一直持有
+            addOnDismissListener(new BaseDialog.OnDismissListener() {
+
+                @Override
+                public void onDismiss(BaseDialog dialog) {
+                    RegionRepository.removeListener(Builder.this);
+                }
+            });
+
+            // 显示省份列表，已经预加载过会直接回调，否则在加载完成后回调
+            RegionRepository.load(getContext(), this);
         }
 
 
@@ -123,8 +161,12 @@ public final class AddressDialog {
          * 设置默认省份
          */
         public Builder setProvince(String name) {
+            if (mRepository == null) {
+                mPendingProvince = name;
+                return this;
+            }
             if (name != null && !"".equals(name)) {
-                List<AddressBean> data = mAdapter1.getData();
+                List<Region> data = mAdapter1.getData();
                 if (data != null && !data.isEmpty()) {
                     for (int i = 0; i < data.size(); i++) {
                         if (name.equals(data.get(i).getName())) {
@@ -144,8 +186,12 @@ public final class AddressDialog {
                 // 已经忽略了县级区域的选择，不能选定指定的城市
                 throw new IllegalStateException("The selection of county-level regions has been ignored. The designated city cannot be selected");
             }
+            if (mRepository == null) {
+                mPendingCity = name;
+                return this;
+            }
             if (name != null && !"".equals(name)) {
-                List<AddressBean> data = mAdapter2.getData();
+                List<Region> data = mAdapter2.getData();
                 if (data != null && !data.isEmpty()) {
                     for (int i = 0; i < data.size(); i++) {
                         if (name.equals(data.get(i).getName())) {
@@ -161,8 +207,8 @@ public final class AddressDialog {
          * 不选择县级区域
          */
         public Builder setIgnoreArea() {
-            List<AddressBean> data = mAdapter2.getData();
-            if (data != null && !data.isEmpty()) {
+            List<Region> data = mAdapter2.getData();
+            if ((data != null && !data.isEmpty()) || mPendingCity != null) {
                 // 已经指定了城市，不能再忽略县级区域
                 throw new IllegalStateException("Cities have been designated and county-level areas can no longer be ignored");
             }
@@ -175,6 +221,29 @@ public final class AddressDialog {
             return this;
         }
 
+        /**
+         * {@link RegionRepository.OnLoadListener}
+         */
+
+        @Override
+        public void onLoaded(RegionRepository repository) {
+            if (repository == null) {
+                return;
+            }
+            mRepository = repository;
+            mAdapter1.setData(repository.getProvinces());
+
+            // 补上加载完成前设置的默认省份和城市
+            if (mPendingProvince != null) {
+                setProvince(mPendingProvince);
+                mPendingProvince = null;
+            }
+            if (mPendingCity != null) {
+                setCity(mPendingCity);
+                mPendingCity = null;
+            }
+        }
+
         /**
          * {@link BaseRecyclerViewAdapter.OnItemClickListener}
          */
@@ -189,7 +258,7 @@ public final class AddressDialog {
                 mTabLayout.getTabAt(mTabLayout.getSelectedTabPosition()).setText(mProvince);
                 mTabLayout.addTab(mTabLayout.newTab().setText(getContext().getResources().getString(R.string.dialog_select_hint)), true);
 
-                mAdapter2.setData(ProvinceUtils.getCityList(mAdapter1.getItem(position).getNext()));
+                mAdapter2.setData(mRepository.getCities(mAdapter1.getItem(position).getIndex()));
 
                 mRecyclerView1.setVisibility(View.GONE);
                 mRecyclerView2.setVisibility(View.VISIBLE);
@@ -217,7 +286,7 @@ public final class AddressDialog {
 
                 } else {
                     mTabLayout.addTab(mTabLayout.newTab().setText(getText(R.string.dialog_select_hint)), true);
-                    mAdapter3.setData(ProvinceUtils.getAreaList(mAdapter2.getItem(position).getNext()));
+                    mAdapter3.setData(mRepository.getAreas(mAdapter2.getItem(position).getIndex()));
                 }
 
                 mRecyclerView2.setVisibility(View.GONE);
@@ -244,7 +313,60 @@ public final class AddressDialog {
 
                 // 延迟关闭
                 postDelayed(this, 300);
+
+            }else if (recyclerView == mSearchRecyclerView) {
+
+                selectRegion(mSearchAdapter.getItem(position));
+            }
+        }
+
+        /**
+         * 根据搜索结果依次选中省、市、区
+         */
+        private void selectRegion(Region region) {
+            Region[] path = new Region[3];
+            for (Region node = region; node != null; node = node.getParent()) {
+                path[node.getLevel()] = node;
+            }
+
+            // 清空搜索内容，回到第一级重新选择
+            mSearchView.setText(null);
+            if (mTabLayout.getSelectedTabPosition() != 0) {
+                mTabLayout.getTabAt(0).select();
+            }
+
+            onItemClick(mRecyclerView1, null, mAdapter1.getData().indexOf(path[0]));
+
+            // 直辖市在选择省份的时候已经自动选择了城市
+            if (path[1] != null && mCity == null) {
+                onItemClick(mRecyclerView2, null, mAdapter2.getData().indexOf(path[1]));
+            }
+
+            if (path[2] != null && !mIgnoreArea) {
+                onItemClick(mRecyclerView3, null, mAdapter3.getData().indexOf(path[2]));
+            }
+        }
+
+        /**
+         * {@link TextWatcher}
+         */
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            if (mRepository == null) {
+                return;
             }
+            // 不选择区域时也不搜索区域
+            List<Region> result = mRepository.getSearchIndex().search(s.toString(),
+                    mIgnoreArea ? RegionSearchIndex.LEVEL_CITY : RegionSearchIndex.LEVEL_AREA, SEARCH_LIMIT);
+            mSearchAdapter.setData(result);
+            mSearchRecyclerView.setVisibility(s.length() > 0 ? View.VISIBLE : View.GONE);
         }
 
         /**
@@ -333,12 +455,19 @@ public final class AddressDialog {
 //        }
     }
 
-    private static final class AddressDialogAdapter extends BaseRecyclerViewAdapter<AddressBean, BaseRecyclerViewAdapter.ViewHolder> {
+    private static final class AddressDialogAdapter extends BaseRecyclerViewAdapter<Region, BaseRecyclerViewAdapter.ViewHolder> {
+
+        // 是否显示完整的省市区路径（用于搜索结果）
+        private boolean mShowPath;
 
         private AddressDialogAdapter(Context context) {
             super(context);
         }
 
+        private void setShowPath(boolean showPath) {
+            mShowPath = showPath;
+        }
+
         @NonNull
         @Override
         public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int position) {
@@ -364,124 +493,20 @@ public final class AddressDialog {
 
         @Override
         public void onBindViewHolder(@NonNull BaseRecyclerViewAdapter.ViewHolder holder, int position) {
-            ((TextView) holder.itemView).setText(getItem(position).getName());
-        }
-    }
-
-    private static final class AddressBean {
-
-        private String name; // 省、市、区的名称
-        private JSONObject next; // 下一级的 Json
-
-        private AddressBean(String name, JSONObject next) {
-            this.name = name;
-            this.next = next;
-        }
-
-        private String getName() {
-            return name;
-        }
-
-        private JSONObject getNext() {
-            return next;
-        }
-    }
-
-    /**
-     * 省市区读取工具类
-     * 刚开始的时候只解析省份，选择省份之后对下一级的Json再进行解析，看见的部分会解析，没看到的数据不会被解析，只是把看不见的数据当成一个JsonObject（也可以理解成一个String）
-     */
-    private static final class ProvinceUtils {
-
-        /**
-         * 获取省列表
-         */
-        private static List<AddressBean> getProvinceList(Context context) {
-            try {
-                JSONArray jsonArray = new JSONArray(getAssetsString(context, "province.json"));
-
-                int length = jsonArray.length();
-
-                ArrayList<AddressBean> list = new ArrayList<>(length);
-
-                for (int i = 0; i < length; i++) {
-                    JSONObject jsonObject = jsonArray.getJSONObject(i);
-                    list.add(new AddressBean(jsonObject.getString("name"), jsonObject));
-                }
-
-                return list;
-
-            } catch (JSONException e) {
-                e.printStackTrace();
-                return null;
-            }
-        }
-
-        /**
-         * 获取城市列表
-         *
-         * @param jsonObject        城市Json
-         */
-        private static List<AddressBean> getCityList(JSONObject jsonObject) {
-            try {
-                JSONArray listCity = jsonObject.getJSONArray("city");
-                int length = listCity.length();
-
-                ArrayList<AddressBean> list = new ArrayList<>(length);
-
-                for (int i = 0; i < length; i++) {
-                    list.add(new AddressBean(listCity.getJSONObject(i).getString("name"), listCity.getJSONObject(i)));
-                }
-
-                return list;
-            } catch (JSONException e) {
-                e.printStackTrace();
-                return null;
+            Region region = getItem(position);
+            if (!mShowPath) {
+                ((TextView) holder.itemView).setText(region.getName());
+                return;
             }
-        }
-
-        /**
-         * 获取区域列表
-         *
-         * @param jsonObject        区域 Json
-         */
-        private static List<AddressBean> getAreaList(JSONObject jsonObject) {
-            try {
-                JSONArray listArea = jsonObject.getJSONArray("area");
-                int length = listArea.length();
-
-                ArrayList<AddressBean> list = new ArrayList<>(length);
 
-                for (int i = 0; i < length; i++) {
-                    String string = listArea.getString(i);
-                    list.add(new AddressBean(string, null));
-                }
-                return list;
-            } catch (JSONException e) {
-                e.printStackTrace();
-                return null;
-            }
-        }
-
-        /**
-         * 获取资产目录下面文件的字符串
-         */
-        private static String getAssetsString(Context context, String file) {
-            try {
-                InputStream inputStream = context.getAssets().open(file);
-                ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-                byte[] buffer = new byte[512];
-                int length;
-                while ((length = inputStream.read(buffer)) != -1) {
-                    outStream.write(buffer, 0, length);
+            StringBuilder builder = new StringBuilder(region.getName());
+            for (Region parent = region.getParent(); parent != null; parent = parent.getParent()) {
+                // 直辖市的城市名称和省份相同，不重复显示
+                if (!parent.getName().equals(parent.getParent() != null ? parent.getParent().getName() : null)) {
+                    builder.insert(0, ' ').insert(0, parent.getName());
                 }
-                outStream.close();
-                inputStream.close();
-                return outStream.toString();
-            } catch (IOException e) {
-                e.printStackTrace();
-                return null;
             }
+            ((TextView) holder.itemView).setText(builder);
         }
     }
 
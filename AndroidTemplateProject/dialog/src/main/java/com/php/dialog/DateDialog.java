@@ -5,7 +5,6 @@ import android.support.v4.app.FragmentActivity;
 
 import com.php.dialog.widget.LoopView;
 
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Locale;
 
@@ -15,6 +14,7 @@ import java.util.Locale;
  *    time   : 2018/12/17
  *    desc   : 日期选择对话框
  *    illustration: 日期选择对话框则弹出的时候会默认选择当前今天的日期，自动识别不同年份和月份中的天数
+ *    年月日都使用 {@link LoopView.NumberAdapter}，不会事先生成文本列表，年份范围可以通过 {@link Builder#setYearRange(int, int)} 修改
  */
 public final class DateDialog extends AbsLooperDialog {
 
@@ -31,27 +31,26 @@ public final class DateDialog extends AbsLooperDialog {
 
         private OnListener mListener;
 
+        private int mStartYear = START_YEAR;
+        // 当前日期列表的天数
+        private int mDayCount;
+
+        private final String mYearSuffix;
+        private final String mDaySuffix;
+
         public Builder(FragmentActivity activity) {
             super(activity);
 
-            // 生产年份
-            ArrayList<String> yearList = new ArrayList<>(10);
-            for (int i = START_YEAR; i <= EDN_YEAR; i++) {
-                yearList.add(i + " " + getText(R.string.dialog_date_year));
-            }
-
-            // 生产月份
-            ArrayList<String> monthList = new ArrayList<>(12);
-            for (int i = 1; i <= 12; i++) {
-                monthList.add(i + " " + getText(R.string.dialog_date_month));
-            }
+            mYearSuffix = " " + getText(R.string.dialog_date_year);
+            mDaySuffix = " " + getText(R.string.dialog_date_day);
 
             mYearView = createLoopView();
             mMonthView = createLoopView();
             mDayView = createLoopView();
 
-            mYearView.setData(yearList);
-            mMonthView.setData(monthList);
+            // 年份和月份
+            mYearView.setAdapter(new LoopView.NumberAdapter(START_YEAR, EDN_YEAR, mYearSuffix));
+            mMonthView.setAdapter(new LoopView.NumberAdapter(1, 12, " " + getText(R.string.dialog_date_month)));
 
             mYearView.setLoopListener(this);
             mMonthView.setLoopListener(this);
@@ -67,19 +66,29 @@ public final class DateDialog extends AbsLooperDialog {
             // 获取这个月最多有多少天
             Calendar calendar = Calendar.getInstance(Locale.CHINA);
             if (loopView == mYearView) {
-                calendar.set(START_YEAR + mYearView.getSelectedItem(), mMonthView.getSelectedItem(), 1);
+                calendar.set(mStartYear + mYearView.getSelectedItem(), mMonthView.getSelectedItem(), 1);
             }else if (loopView == mMonthView) {
-                calendar.set(START_YEAR + mYearView.getSelectedItem(), mMonthView.getSelectedItem(), 1);
+                calendar.set(mStartYear + mYearView.getSelectedItem(), mMonthView.getSelectedItem(), 1);
             }
 
             int day = calendar.getActualMaximum(Calendar.DATE);
 
-            ArrayList<String> dayList = new ArrayList<>(day);
-            for (int i = 1; i <= day; i++) {
-                dayList.add(i + " " + getText(R.string.dialog_date_day));
+            // 天数没有变化就不需要更新日期列表
+            if (day != mDayCount) {
+                mDayCount = day;
+                mDayView.setAdapter(new LoopView.NumberAdapter(1, day, mDaySuffix));
             }
+        }
 
-            mDayView.setData(dayList);
+        /**
+         * 设置可以选择的年份范围（包含起始和结束年份）
+         */
+        public Builder setYearRange(int startYear, int endYear) {
+            int year = mStartYear + mYearView.getSelectedItem();
+            mStartYear = startYear;
+            mYearView.setAdapter(new LoopView.NumberAdapter(startYear, endYear, mYearSuffix));
+            mYearView.setInitPosition(Math.max(year - startYear, 0));
+            return this;
         }
 
         public Builder setListener(OnListener l) {
@@ -90,7 +99,7 @@ public final class DateDialog extends AbsLooperDialog {
         @Override
         protected void onConfirm() {
             if (mListener != null) {
-                mListener.onSelected(getDialog(), START_YEAR + mYearView.getSelectedItem(),
+                mListener.onSelected(getDialog(), mStartYear + mYearView.getSelectedItem(),
                         mMonthView.getSelectedItem() + 1, mDayView.getSelectedItem() + 1);
             }
             dismiss();
@@ -0,0 +1,53 @@
+package com.php.dialog.region;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/05/20
+ *    desc   : 省、市、区节点（不可变对象）
+ */
+public final class Region {
+
+    private final String mName; // 省、市、区的名称
+    private final int mIndex; // 在索引中的全局下标
+    private final Region mParent; // 上一级节点，省份为 null
+
+    Region(String name, int index, Region parent) {
+        mName = name;
+        mIndex = index;
+        mParent = parent;
+    }
+
+    /**
+     * 获取名称
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 获取在索引中的全局下标，省份的下标用于获取城市列表，城市的下标用于获取区域列表
+     */
+    public int getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * 获取上一级节点，省份返回 null
+     */
+    public Region getParent() {
+        return mParent;
+    }
+
+    /**
+     * 获取层级，省份为 0，城市为 1，区域为 2
+     */
+    public int getLevel() {
+        return mParent == null ? 0 : mParent.getLevel() + 1;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
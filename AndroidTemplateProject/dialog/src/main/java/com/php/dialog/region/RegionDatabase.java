@@ -0,0 +1,238 @@
+package com.php.dialog.region;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/05/20
+ *    desc   : 省市区二进制索引
+ *    illustration    :
+ *    ①索引文件 province.bin 由 dialog 模块的 region.gradle 在构建时根据 province.json 生成，文件格式见该脚本
+ *    ②优先以内存映射的方式读取，数据不会拷贝到堆内存中；如果资源被压缩无法映射，则退化成一次性读入
+ *    ③省、市、区都用全局下标表示，名称只有在被读取的时候才会解码成字符串
+ *    ④每个节点还保存了构建时生成的拼音首字母，多音字的每种组合用 '|' 分隔，例如“重庆市”为“zqs|cqs”
+ */
+public final class RegionDatabase {
+
+    /** 索引文件名称 */
+    private static final String ASSET_NAME = "province.bin";
+
+    /** 文件魔数 'RGN2' */
+    private static final int MAGIC = 0x52474E32;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+
+    private final int mProvinceCount;
+    private final int mCityCount;
+    private final int mAreaCount;
+
+    // 各个数据段在文件中的偏移量
+    private final int mCityStartOffset;
+    private final int mAreaStartOffset;
+    private final int mNodeNameOffset;
+    private final int mNodeInitialsOffset;
+    private final int mStringOffset;
+    private final int mBytesOffset;
+
+    private RegionDatabase(ByteBuffer buffer) {
+        mBuffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a region database");
+        }
+
+        mProvinceCount = buffer.getInt(4);
+        mCityCount = buffer.getInt(8);
+        mAreaCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+
+        mCityStartOffset = 20;
+        mAreaStartOffset = mCityStartOffset + (mProvinceCount + 1) * 4;
+        mNodeNameOffset = mAreaStartOffset + (mCityCount + 1) * 4;
+        mNodeInitialsOffset = mNodeNameOffset + (mProvinceCount + mCityCount + mAreaCount) * 4;
+        mStringOffset = mNodeInitialsOffset + (mProvinceCount + mCityCount + mAreaCount) * 4;
+        mBytesOffset = mStringOffset + (stringCount + 1) * 4;
+    }
+
+    /**
+     * 打开资产目录下的索引文件，失败返回 null
+     */
+    public static RegionDatabase open(Context context) {
+        try {
+            return new RegionDatabase(mapAsset(context, ASSET_NAME));
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取省份数量
+     */
+    public int getProvinceCount() {
+        return mProvinceCount;
+    }
+
+    /**
+     * 获取省份名称
+     *
+     * @param province          省份下标
+     */
+    public String getProvinceName(int province) {
+        return getNodeName(province);
+    }
+
+    /**
+     * 获取省份名称的拼音首字母
+     */
+    public String getProvinceInitials(int province) {
+        return getString(mNodeInitialsOffset, province);
+    }
+
+    /**
+     * 获取某个省份第一个城市的下标（包含）
+     */
+    public int getCityStart(int province) {
+        return mBuffer.getInt(mCityStartOffset + province * 4);
+    }
+
+    /**
+     * 获取某个省份最后一个城市的下标（不包含）
+     */
+    public int getCityEnd(int province) {
+        return getCityStart(province + 1);
+    }
+
+    /**
+     * 获取城市名称
+     *
+     * @param city              城市的全局下标
+     */
+    public String getCityName(int city) {
+        return getNodeName(mProvinceCount + city);
+    }
+
+    /**
+     * 获取城市名称的拼音首字母
+     */
+    public String getCityInitials(int city) {
+        return getString(mNodeInitialsOffset, mProvinceCount + city);
+    }
+
+    /**
+     * 获取某个城市第一个区域的下标（包含）
+     */
+    public int getAreaStart(int city) {
+        return mBuffer.getInt(mAreaStartOffset + city * 4);
+    }
+
+    /**
+     * 获取某个城市最后一个区域的下标（不包含）
+     */
+    public int getAreaEnd(int city) {
+        return getAreaStart(city + 1);
+    }
+
+    /**
+     * 获取区域名称
+     *
+     * @param area              区域的全局下标
+     */
+    public String getAreaName(int area) {
+        return getNodeName(mProvinceCount + mCityCount + area);
+    }
+
+    /**
+     * 获取区域名称的拼音首字母
+     */
+    public String getAreaInitials(int area) {
+        return getString(mNodeInitialsOffset, mProvinceCount + mCityCount + area);
+    }
+
+    /**
+     * 获取城市总数
+     */
+    public int getCityCount() {
+        return mCityCount;
+    }
+
+    /**
+     * 获取区域总数
+     */
+    public int getAreaCount() {
+        return mAreaCount;
+    }
+
+    /**
+     * 根据节点下标解码名称
+     */
+    private String getNodeName(int node) {
+        return getString(mNodeNameOffset, node);
+    }
+
+    /**
+     * 根据节点下标解码字符串
+     *
+     * @param tableOffset       节点字符串下标数据段的偏移量
+     * @param node              节点下标
+     */
+    private String getString(int tableOffset, int node) {
+        int string = mBuffer.getInt(tableOffset + node * 4);
+        int start = mBuffer.getInt(mStringOffset + string * 4);
+        int end = mBuffer.getInt(mStringOffset + (string + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        // 使用副本读取，避免多线程同时修改 position
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mBytesOffset + start);
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * 内存映射资产目录下的文件
+     */
+    private static ByteBuffer mapAsset(Context context, String file) throws IOException {
+        AssetFileDescriptor descriptor = null;
+        try {
+            descriptor = context.getAssets().openFd(file);
+        } catch (IOException e) {
+            // 资源被压缩了，不能直接映射
+        }
+
+        if (descriptor != null) {
+            FileInputStream inputStream = new FileInputStream(descriptor.getFileDescriptor());
+            try {
+                FileChannel channel = inputStream.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getDeclaredLength());
+            } finally {
+                inputStream.close();
+                descriptor.close();
+            }
+        }
+
+        InputStream inputStream = context.getAssets().open(file);
+        try {
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outStream.write(buffer, 0, length);
+            }
+            return ByteBuffer.wrap(outStream.toByteArray());
+        } finally {
+            inputStream.close();
+        }
+    }
+}
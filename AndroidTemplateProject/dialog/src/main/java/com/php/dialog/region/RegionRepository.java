@@ -0,0 +1,223 @@
+package com.php.dialog.region;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/05/20
+ *    desc   : 省市区数据仓库（进程内单例）
+ *    illustration    :
+ *    ①在 Application 中调用 {@link #init(Context)} 后会在子线程中读取 {@link RegionDatabase}，
+ *    之后所有的省市区对话框共用同一份不可变的列表，再次打开对话框不会产生任何 I/O 和对象分配
+ *    ②如果打开对话框时还没有加载完成，通过 {@link #load(Context, OnLoadListener)} 等待加载完成的回调，不会阻塞主线程
+ */
+public final class RegionRepository {
+
+    private static final Handler HANDLER = new Handler(Looper.getMainLooper());
+
+    private static volatile RegionRepository sRepository;
+
+    // 等待加载完成的监听
+    private static final List<OnLoadListener> sListeners = new ArrayList<>();
+    // 是否正在加载中
+    private static boolean sLoading;
+
+    private final List<Region> mProvinces;
+    private final List<List<Region>> mCities;
+    private final List<List<Region>> mAreas;
+    private final RegionSearchIndex mSearchIndex;
+
+    private RegionRepository(RegionDatabase database) {
+        // 名称字符串池，同名的节点共用一个字符串对象
+        Map<String, String> pool = new HashMap<>();
+        RegionSearchIndex.Builder searchBuilder = new RegionSearchIndex.Builder();
+
+        int provinceCount = database.getProvinceCount();
+        List<Region> provinces = new ArrayList<>(provinceCount);
+        List<List<Region>> cities = new ArrayList<>(provinceCount);
+        List<List<Region>> areas = new ArrayList<>(database.getCityCount());
+        for (int i = 0; i < provinceCount; i++) {
+            Region province = new Region(intern(pool, database.getProvinceName(i)), i, null);
+            provinces.add(province);
+            searchBuilder.add(province, database.getProvinceInitials(i));
+
+            int cityStart = database.getCityStart(i);
+            int cityEnd = database.getCityEnd(i);
+            List<Region> cityList = new ArrayList<>(cityEnd - cityStart);
+            for (int j = cityStart; j < cityEnd; j++) {
+                Region city = new Region(intern(pool, database.getCityName(j)), j, province);
+                cityList.add(city);
+                // 直辖市的城市名称和省份相同，不需要重复搜索出来
+                if (!city.getName().equals(province.getName())) {
+                    searchBuilder.add(city, database.getCityInitials(j));
+                }
+
+                int areaStart = database.getAreaStart(j);
+                int areaEnd = database.getAreaEnd(j);
+                List<Region> areaList = new ArrayList<>(areaEnd - areaStart);
+                for (int k = areaStart; k < areaEnd; k++) {
+                    Region area = new Region(intern(pool, database.getAreaName(k)), k, city);
+                    areaList.add(area);
+                    searchBuilder.add(area, database.getAreaInitials(k));
+                }
+                areas.add(Collections.unmodifiableList(areaList));
+            }
+            cities.add(Collections.unmodifiableList(cityList));
+        }
+
+        mProvinces = Collections.unmodifiableList(provinces);
+        mCities = Collections.unmodifiableList(cities);
+        mAreas = Collections.unmodifiableList(areas);
+        mSearchIndex = searchBuilder.build();
+    }
+
+    private static String intern(Map<String, String> pool, String name) {
+        String string = pool.get(name);
+        if (string == null) {
+            pool.put(name, name);
+            string = name;
+        }
+        return string;
+    }
+
+    /**
+     * 在子线程中预加载省市区数据（一般在 Application 中调用）
+     */
+    public static void init(Context context) {
+        load(context, null);
+    }
+
+    /**
+     * 获取已经加载完成的数据仓库，还没有加载完成返回 null
+     */
+    public static RegionRepository getInstance() {
+        return sRepository;
+    }
+
+    /**
+     * 获取数据仓库，如果已经加载完成会直接回调，否则在加载完成后回调到主线程
+     *
+     * @param listener          加载完成的监听，加载失败会回调 null
+     */
+    public static void load(Context context, OnLoadListener listener) {
+        RegionRepository repository = sRepository;
+        if (repository != null) {
+            if (listener != null) {
+                listener.onLoaded(repository);
+            }
+            return;
+        }
+
+        synchronized (RegionRepository.class) {
+            if (listener != null) {
+                sListeners.add(listener);
+            }
+            if (sLoading) {
+                return;
+            }
+            sLoading = true;
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        new Thread("RegionRepository") {
+
+            @Override
+            public void run() {
+                RegionRepository result = null;
+                try {
+                    RegionDatabase database = RegionDatabase.open(applicationContext);
+                    if (database != null) {
+                        result = new RegionRepository(database);
+                    }
+                } catch (RuntimeException e) {
+                    // 数据文件损坏等情况，按加载失败回调，下次打开对话框时会重新加载
+                    e.printStackTrace();
+                }
+                final RegionRepository repository = result;
+                HANDLER.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        dispatchLoaded(repository);
+                    }
+                });
+            }
+        }.start();
+    }
+
+    /**
+     * 移除等待加载完成的监听，避免对话框关闭后还被持有
+     */
+    public static void removeListener(OnLoadListener listener) {
+        synchronized (RegionRepository.class) {
+            sListeners.remove(listener);
+        }
+    }
+
+    private static void dispatchLoaded(RegionRepository repository) {
+        List<OnLoadListener> listeners;
+        synchronized (RegionRepository.class) {
+            sRepository = repository;
+            sLoading = false;
+            listeners = new ArrayList<>(sListeners);
+            sListeners.clear();
+        }
+        for (OnLoadListener listener : listeners) {
+            listener.onLoaded(repository);
+        }
+    }
+
+    /**
+     * 获取省份列表
+     */
+    public List<Region> getProvinces() {
+        return mProvinces;
+    }
+
+    /**
+     * 获取某个省份下的城市列表
+     *
+     * @param province          省份下标，见 {@link Region#getIndex()}
+     */
+    public List<Region> getCities(int province) {
+        return mCities.get(province);
+    }
+
+    /**
+     * 获取某个城市下的区域列表
+     *
+     * @param city              城市下标，见 {@link Region#getIndex()}
+     */
+    public List<Region> getAreas(int city) {
+        return mAreas.get(city);
+    }
+
+    /**
+     * 获取省市区的搜索索引
+     */
+    public RegionSearchIndex getSearchIndex() {
+        return mSearchIndex;
+    }
+
+    /**
+     * 数据加载完成监听
+     */
+    public interface OnLoadListener {
+
+        /**
+         * 加载完成后在主线程回调
+         *
+         * @param repository        数据仓库，加载失败为 null
+         */
+        void onLoaded(RegionRepository repository);
+    }
+}
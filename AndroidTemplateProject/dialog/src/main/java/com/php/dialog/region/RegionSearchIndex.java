@@ -0,0 +1,161 @@
+package com.php.dialog.region;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/05/22
+ *    desc   : 省市区前缀搜索索引
+ *    illustration    :
+ *    ①把所有节点的名称和拼音首字母作为关键字放进一个有序数组，搜索时二分查找第一个不小于输入的关键字，
+ *    再往后扫描前缀相同的关键字，每次输入只需要 O(log n + k) 次字符串比较，不需要遍历全部数据；
+ *    前缀相同的关键字是连续的，全部取出按层级排序后再截取，匹配数量超过上限时也不会丢掉省份和城市
+ *    ②只在数据仓库加载时构建一次，构建完成后不可变，可以在任意线程中搜索
+ */
+public final class RegionSearchIndex {
+
+    /** 省份的层级，见 {@link Region#getLevel()} */
+    public static final int LEVEL_PROVINCE = 0;
+    /** 城市的层级 */
+    public static final int LEVEL_CITY = 1;
+    /** 区域的层级 */
+    public static final int LEVEL_AREA = 2;
+
+    // 按层级排序，省份排在城市前面，城市排在区域前面
+    private static final Comparator<Region> LEVEL_COMPARATOR = new Comparator<Region>() {
+
+        @Override
+        public int compare(Region o1, Region o2) {
+            return o1.getLevel() - o2.getLevel();
+        }
+    };
+
+    private final String[] mKeys;
+    private final Region[] mRegions;
+
+    private RegionSearchIndex(String[] keys, Region[] regions) {
+        mKeys = keys;
+        mRegions = regions;
+    }
+
+    /**
+     * 搜索名称或者拼音首字母以指定内容开头的节点
+     *
+     * @param query             搜索内容，忽略大小写和首尾空格
+     * @param limit             最多返回的数量
+     * @return                  匹配的节点，按省、市、区的层级排序，可以通过 {@link Region#getParent()} 获取完整路径
+     */
+    public List<Region> search(String query, int limit) {
+        return search(query, LEVEL_AREA, limit);
+    }
+
+    /**
+     * 搜索名称或者拼音首字母以指定内容开头的节点
+     *
+     * @param query             搜索内容，忽略大小写和首尾空格
+     * @param maxLevel          最深的层级，例如不选择区域时传 {@link #LEVEL_CITY}
+     * @param limit             最多返回的数量
+     * @return                  匹配的节点，按省、市、区的层级排序，同一层级按关键字排序
+     */
+    public List<Region> search(String query, int maxLevel, int limit) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        query = query.trim().toLowerCase(Locale.ENGLISH);
+        if (query.length() == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Region> result = new ArrayList<>();
+        // 同一个节点可能同时匹配名称和拼音
+        Set<Region> added = Collections.newSetFromMap(new IdentityHashMap<Region, Boolean>());
+        for (int i = lowerBound(query); i < mKeys.length; i++) {
+            if (!mKeys[i].startsWith(query)) {
+                break;
+            }
+            Region region = mRegions[i];
+            if (region.getLevel() <= maxLevel && added.add(region)) {
+                result.add(region);
+            }
+        }
+        // 排序是稳定的，同一层级保持关键字的顺序
+        Collections.sort(result, LEVEL_COMPARATOR);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 二分查找第一个不小于指定内容的关键字下标
+     */
+    private int lowerBound(String query) {
+        int low = 0;
+        int high = mKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mKeys[middle].compareTo(query) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 搜索索引构建器
+     */
+    static final class Builder {
+
+        private final List<Entry> mEntries = new ArrayList<>();
+
+        /**
+         * 添加一个节点
+         *
+         * @param initials          拼音首字母，多音字的每种组合用 '|' 分隔
+         */
+        Builder add(Region region, String initials) {
+            mEntries.add(new Entry(region.getName(), region));
+            if (initials != null && initials.length() > 0) {
+                for (String key : initials.split("\\|")) {
+                    mEntries.add(new Entry(key.toLowerCase(Locale.ENGLISH), region));
+                }
+            }
+            return this;
+        }
+
+        RegionSearchIndex build() {
+            Collections.sort(mEntries);
+            int size = mEntries.size();
+            String[] keys = new String[size];
+            Region[] regions = new Region[size];
+            for (int i = 0; i < size; i++) {
+                Entry entry = mEntries.get(i);
+                keys[i] = entry.key;
+                regions[i] = entry.region;
+            }
+            return new RegionSearchIndex(keys, regions);
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final String key;
+        private final Region region;
+
+        private Entry(String key, Region region) {
+            this.key = key;
+            this.region = region;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return key.compareTo(o.key);
+        }
+    }
+}
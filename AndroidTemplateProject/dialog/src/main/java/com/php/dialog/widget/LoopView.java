@@ -5,39 +5,50 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.Typeface;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
+import android.widget.OverScroller;
 
 import com.php.dialog.R;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  *    author : brucetoo
  *    github : https://github.com/brucetoo/PickView
  *    time   : 2019/02/17
  *    desc   : 循环滚动列表自定义控件
+ *    illustration    : 惯性滚动和对齐动画由 {@link OverScroller} 计算，并通过 {@link #computeScroll()} 跟随
+ *    Choreographer 的屏幕刷新信号推进，所有的滚轮共用主线程的帧时钟，不会创建额外的线程
+ *    数据通过 {@link Adapter} 按下标懒加载，只有可见的条目才会生成文本，范围再大也只占用可见条目的内存
+ *    3D 滚筒效果只用到平移、缩放和矩形裁剪，默认使用硬件加速绘制，每一行的位移和缩放比例预先计算成表，绘制时不需要三角函数运算
  */
 public final class LoopView extends View {
 
     private static final String TAG = "LoopView";
 
-    private ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledFuture mScheduledFuture;
+    // 对齐到最近条目的动画时长
+    private static final int SETTLE_DURATION = 250;
+
+    private static final int SCROLL_STATE_IDLE = 0;
+    private static final int SCROLL_STATE_FLING = 1;
+    private static final int SCROLL_STATE_SETTLING = 2;
+
+    private final OverScroller mScroller;
+    private int mScrollState = SCROLL_STATE_IDLE;
+    private final Runnable mSelectedRunnable = new SelectedRunnable();
 
     private LoopScrollListener mListener;
 
-    private List<String> mData;
+    private Adapter mAdapter;
 
     private Paint mTopBottomTextPaint;
     private Paint mCenterTextPaint;
@@ -45,7 +56,6 @@ public final class LoopView extends View {
 
     private int mTotalScrollY;
     private GestureDetector mGestureDetector;
-    private int mSelectedItem;
     private int mTextSize;
 
     private int mMaxTextWidth;
@@ -70,11 +80,28 @@ public final class LoopView extends View {
 
     private float mItemHeight;
     private int mDrawItemsCount;
-    private String[] mItemTempArray;
+    // 每一帧需要绘制的条目下标、位移和缩放，避免在 onDraw 中分配对象
+    private int[] mItemIndexArray;
+    private float[] mItemTranslateArray;
+    private float[] mItemScaleArray;
+
+    private String[] mItemLabelArray;
+
+    // 最近绘制过的条目文本缓存（按下标直接映射），连续的可见条目不会互相覆盖
+    private int[] mLabelCachePositions;
+    private String[] mLabelCacheTexts;
 
     private float mCircularDiameter;
     private float mCircularRadius;
 
+    // 是否使用硬件加速绘制
+    private boolean mHardwareRendering = true;
+
+    // 按弧长（像素）预先计算好的位移和缩放比例表
+    private float[] mArcTranslateTable;
+    private float[] mArcScaleTable;
+    private boolean mArcTableDirty = true;
+
     public LoopView(Context context) {
         this(context, null);
     }
@@ -95,7 +122,13 @@ public final class LoopView extends View {
             mInitPosition = array.getInt(R.styleable.LoopView_lv_initPosition, -1);
             mTextSize = array.getDimensionPixelSize(R.styleable.LoopView_lv_textSize, (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 18, getContext().getResources().getDisplayMetrics()));
             mDrawItemsCount = array.getInt(R.styleable.LoopView_lv_drawItemCount, 7);
-            mItemTempArray = new String[mDrawItemsCount];
+            mHardwareRendering = array.getBoolean(R.styleable.LoopView_lv_hardwareRendering, true);
+            mItemIndexArray = new int[mDrawItemsCount];
+            mItemTranslateArray = new float[mDrawItemsCount];
+            mItemScaleArray = new float[mDrawItemsCount];
+            mItemLabelArray = new String[mDrawItemsCount];
+            mLabelCachePositions = new int[mDrawItemsCount * 2];
+            mLabelCacheTexts = new String[mDrawItemsCount * 2];
             array.recycle();
         }
 
@@ -105,7 +138,9 @@ public final class LoopView extends View {
         mCenterTextPaint = new Paint();
         mCenterLinePaint = new Paint();
 
-        setLayerType(LAYER_TYPE_SOFTWARE, null);
+        updateLayerType();
+
+        mScroller = new OverScroller(context);
 
         mGestureDetector = new GestureDetector(context, new LoopViewGestureListener());
         mGestureDetector.setIsLongpressEnabled(false);
@@ -143,111 +178,138 @@ public final class LoopView extends View {
         // topLineY = diameter/2 - itemHeight(mItemHeight) / 2 + mVerticalPadding
         mTopLineY =  ((mCircularDiameter - mItemHeight) / 2) + mVerticalPadding;
         mBottomLineY = ((mCircularDiameter + mItemHeight) / 2) + mVerticalPadding;
+
+        mArcTableDirty = true;
+    }
+
+    /**
+     * 预先计算每个弧长（像素）对应的位移和缩放比例
+     */
+    private void buildArcTable() {
+        mArcTableDirty = false;
+
+        int length = (int) (Math.PI * mCircularRadius) + 1;
+        if (mArcTranslateTable == null || mArcTranslateTable.length != length) {
+            mArcTranslateTable = new float[length];
+            mArcScaleTable = new float[length];
+        }
+
+        for (int i = 0; i < length; i++) {
+            // L= å * r -> å = rad
+            double radian = i / mCircularRadius;
+            // translateY = r - r*cos(å) -
+            // (Math.sin(radian) * mMaxTextHeight) / 2 this is text offset
+            mArcTranslateTable[i] = (float) (mCircularRadius - Math.cos(radian) * mCircularRadius - (Math.sin(radian) * mMaxTextHeight) / 2) + mVerticalPadding;
+            // scale offset = Math.sin(radian) -> 0 - 1
+            mArcScaleTable[i] = (float) Math.sin(radian);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
 
-        if (mData == null) return;
+        if (mAdapter == null || mAdapter.getCount() == 0 || mItemHeight == 0) return;
+
+        if (mArcTableDirty) {
+            buildArcTable();
+        }
+
+        int size = mAdapter.getCount();
 
         // the length of single item is mItemHeight
         int mChangingItem = (int) (mTotalScrollY / (mItemHeight));
-        mCurrentIndex = mInitPosition + mChangingItem % mData.size();
-        if (!mCanLoop) { // can loop
-            if (mCurrentIndex < 0) {
-                mCurrentIndex = 0;
-            }
-            if (mCurrentIndex > mData.size() - 1) {
-                mCurrentIndex = mData.size() - 1;
-            }
-        } else { // can not loop
-            if (mCurrentIndex < 0) {
-                mCurrentIndex = mData.size() + mCurrentIndex;
-            }
-            if (mCurrentIndex > mData.size() - 1) {
-                mCurrentIndex = mCurrentIndex - mData.size();
-            }
-        }
+        mCurrentIndex = normalizeIndex(mInitPosition + mChangingItem % size);
+
+        // draw top and bottom line
+        canvas.drawLine(0, mTopLineY, getMeasuredWidth(), mTopLineY, mCenterLinePaint);
+        canvas.drawLine(0, mBottomLineY, getMeasuredWidth(), mBottomLineY, mCenterLinePaint);
 
-        int count = 0;
-        // reconfirm each item's value from dataList according to currentIndex,
-        while (count < mDrawItemsCount) {
+        int changingLeftY = (int) (mTotalScrollY % (mItemHeight));
+        for (int count = 0; count < mDrawItemsCount; count++) {
+            // reconfirm each item's index from dataList according to currentIndex, -1 means empty
             int templateItem = mCurrentIndex - (mDrawItemsCount / 2 - count);
             if (mCanLoop) {
-                if (templateItem < 0) {
-                    templateItem = templateItem + mData.size();
-                }
-                if (templateItem > mData.size() - 1) {
-                    templateItem = templateItem - mData.size();
-                }
-                mItemTempArray[count] = mData.get(templateItem);
-            } else if (templateItem < 0) {
-                mItemTempArray[count] = "";
-            } else if (templateItem > mData.size() - 1) {
-                mItemTempArray[count] = "";
-            } else {
-                mItemTempArray[count] = mData.get(templateItem);
+                templateItem = normalizeIndex(templateItem);
+            } else if (templateItem < 0 || templateItem > size - 1) {
+                templateItem = -1;
+            }
+            mItemIndexArray[count] = templateItem;
+            if (templateItem == -1) {
+                continue;
             }
-            count++;
+
+            // get arc length  L = (itemHeight * count - changingLeftY)
+            int arc = Math.round(mItemHeight * count) - changingLeftY;
+            // when angle >= 180 || angle <= 0 don't draw
+            if (arc <= 0 || arc >= mArcTranslateTable.length) {
+                mItemIndexArray[count] = -1;
+                continue;
+            }
+            mItemTranslateArray[count] = mArcTranslateTable[arc];
+            mItemScaleArray[count] = mArcScaleTable[arc];
+
+            mItemLabelArray[count] = obtainLabel(templateItem);
         }
 
-        // draw top and bottom line
-        canvas.drawLine(0, mTopLineY, getMeasuredWidth(), mTopLineY, mCenterLinePaint);
-        canvas.drawLine(0, mBottomLineY, getMeasuredWidth(), mBottomLineY, mCenterLinePaint);
+        // 分成上、中、下三个区域，每个区域只裁剪一次，跨越分割线的条目会在两个区域中各画一部分
+        drawItems(canvas, 0, mTopLineY, mTopBottomTextPaint);
+        drawItems(canvas, mTopLineY, mBottomLineY, mCenterTextPaint);
+        drawItems(canvas, mBottomLineY, getMeasuredHeight(), mTopBottomTextPaint);
+    }
 
-        count = 0;
-        int changingLeftY = (int) (mTotalScrollY % (mItemHeight));
-        while (count < mDrawItemsCount) {
+    /**
+     * 绘制和指定区域相交的条目
+     */
+    private void drawItems(Canvas canvas, float top, float bottom, Paint paint) {
+        canvas.save();
+        canvas.clipRect(0, top, getMeasuredWidth(), bottom);
+        for (int count = 0; count < mDrawItemsCount; count++) {
+            int index = mItemIndexArray[count];
+            if (index == -1) {
+                continue;
+            }
+            float translateY = mItemTranslateArray[count];
+            if (translateY >= bottom || translateY + mMaxTextHeight <= top) {
+                continue;
+            }
             canvas.save();
-            // L= å * r -> å = rad
-            float itemHeight = mMaxTextHeight * mLineSpacingMultiplier;
-            // get radian  L = (itemHeight * count - changingLeftY),r = mCircularRadius
-            double radian = (itemHeight * count - changingLeftY) / mCircularRadius;
-            // a = rad * 180 / π
-            // get angle
-            float angle = (float) (radian * 180 / Math.PI);
+            canvas.translate(0.0F, translateY);
+            canvas.scale(1.0F, mItemScaleArray[count]);
+            canvas.drawText(mItemLabelArray[count], mHorizontalPadding, mMaxTextHeight, paint);
+            canvas.restore();
+        }
+        canvas.restore();
+    }
 
-            // when angle >= 180 || angle <= 0 don't draw
-            if (angle >= 180F || angle <= 0F) {
-                canvas.restore();
-            } else {
-                // translateY = r - r*cos(å) -
-                // (Math.sin(radian) * mMaxTextHeight) / 2 this is text offset
-                float translateY = (float) (mCircularRadius - Math.cos(radian) * mCircularRadius - (Math.sin(radian) * mMaxTextHeight) / 2) + mVerticalPadding;
-                canvas.translate(0.0F, translateY);
-                // scale offset = Math.sin(radian) -> 0 - 1
-                canvas.scale(1.0F, (float) Math.sin(radian));
-                if (translateY <= mTopLineY) {
-                    // draw text y between 0 -> mTopLineY,include incomplete text
-                    canvas.save();
-                    canvas.clipRect(0, 0, getMeasuredWidth(), mTopLineY - translateY);
-                    canvas.drawText(mItemTempArray[count], mHorizontalPadding, mMaxTextHeight, mTopBottomTextPaint);
-                    canvas.restore();
-                    canvas.save();
-                    canvas.clipRect(0, mTopLineY - translateY, getMeasuredWidth(), (int) (itemHeight));
-                    canvas.drawText(mItemTempArray[count], mHorizontalPadding, mMaxTextHeight, mCenterTextPaint);
-                    canvas.restore();
-                } else if (mMaxTextHeight + translateY >= mBottomLineY) {
-                    // draw text y between  mTopLineY -> mBottomLineY ,include incomplete text
-                    canvas.save();
-                    canvas.clipRect(0, 0, getMeasuredWidth(), mBottomLineY - translateY);
-                    canvas.drawText(mItemTempArray[count], mHorizontalPadding, mMaxTextHeight, mCenterTextPaint);
-                    canvas.restore();
-                    canvas.save();
-                    canvas.clipRect(0, mBottomLineY - translateY, getMeasuredWidth(), (int) (itemHeight));
-                    canvas.drawText(mItemTempArray[count], mHorizontalPadding, mMaxTextHeight, mTopBottomTextPaint);
-                    canvas.restore();
-                } else if (translateY >= mTopLineY && mMaxTextHeight + translateY <= mBottomLineY) {
-                    // draw center complete text
-                    canvas.clipRect(0, 0, getMeasuredWidth(), (int) (itemHeight));
-                    canvas.drawText(mItemTempArray[count], mHorizontalPadding, mMaxTextHeight, mCenterTextPaint);
-                    // center one indicate selected item
-                    mSelectedItem = mData.indexOf(mItemTempArray[count]);
-                }
-                canvas.restore();
+    /**
+     * 获取条目文本，没有命中缓存才会向适配器获取
+     */
+    private String obtainLabel(int position) {
+        int slot = position % mLabelCachePositions.length;
+        if (mLabelCachePositions[slot] != position) {
+            String label = mAdapter.getLabel(position);
+            if (label == null) {
+                label = "";
             }
-            count++;
+            mLabelCachePositions[slot] = position;
+            mLabelCacheTexts[slot] = label;
         }
+        return mLabelCacheTexts[slot];
+    }
+
+    /**
+     * 将下标转换到数据范围内，可以循环的列表取模，不可以循环的列表取边界值
+     */
+    private int normalizeIndex(int index) {
+        int size = mAdapter.getCount();
+        if (mCanLoop) {
+            index %= size;
+            return index < 0 ? index + size : index;
+        }
+        if (index < 0) {
+            return 0;
+        }
+        return index > size - 1 ? size - 1 : index;
     }
 
     @SuppressLint("ClickableViewAccessibility")
@@ -280,18 +342,44 @@ public final class LoopView extends View {
         }
     }
 
+    /**
+     * 设置是否使用硬件加速绘制，默认开启
+     */
+    public void setHardwareRendering(boolean enabled) {
+        mHardwareRendering = enabled;
+        updateLayerType();
+    }
+
+    private void updateLayerType() {
+        // Android 4.3 以下的硬件加速不会按缩放后的大小重新栅格化文字，滚筒上下两端的文字会模糊变形，只能使用软件绘制
+        if (mHardwareRendering && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            setLayerType(LAYER_TYPE_NONE, null);
+        } else {
+            setLayerType(LAYER_TYPE_SOFTWARE, null);
+        }
+    }
+
     public void setLineSpacingMultiplier(float spacing) {
         this.mLineSpacingMultiplier = spacing;
     }
 
+    /**
+     * 获取当前选中的条目，直接根据滚动距离计算，不依赖绘制
+     */
     public int getSelectedItem() {
-        return mSelectedItem;
+        if (mAdapter == null || mAdapter.getCount() == 0) {
+            return 0;
+        }
+        if (mItemHeight == 0) {
+            return normalizeIndex(mInitPosition);
+        }
+        return normalizeIndex(mInitPosition + Math.round(mTotalScrollY / mItemHeight) % mAdapter.getCount());
     }
 
     public void setInitPosition(int initPosition) {
-        if (mData == null) return;
-        if (initPosition > mData.size()) {
-            initPosition = mData.size() - 1;
+        if (mAdapter == null) return;
+        if (initPosition > mAdapter.getCount() - 1) {
+            initPosition = mAdapter.getCount() - 1;
         }
         mInitPosition = initPosition;
         invalidate();
@@ -309,11 +397,24 @@ public final class LoopView extends View {
      * @param data data list
      */
     public final void setData(List<String> data) {
-        mData = data;
-
-        if (mData == null) {
+        if (data == null) {
             throw new IllegalArgumentException("data list must not be null!");
         }
+        setAdapter(new ListAdapter(data));
+    }
+
+    /**
+     * 设置数据适配器，条目只有在可见的时候才会向适配器获取文本
+     * All public method must be called before this method
+     */
+    public final void setAdapter(Adapter adapter) {
+        mAdapter = adapter;
+
+        if (mAdapter == null) {
+            throw new IllegalArgumentException("adapter must not be null!");
+        }
+        Arrays.fill(mLabelCachePositions, -1);
+
         mTopBottomTextPaint.setColor(mTopBottomTextColor);
         mTopBottomTextPaint.setAntiAlias(true);
         mTopBottomTextPaint.setTypeface(Typeface.MONOSPACE);
@@ -331,25 +432,21 @@ public final class LoopView extends View {
         mCenterLinePaint.setTextSize(mTextSize);
 
         // measureTextWidthHeight
-        Rect rect = new Rect();
-        for (int i = 0; i < mData.size(); i++) {
-            String text = mData.get(i);
-            mCenterTextPaint.getTextBounds(text, 0, text.length(), rect);
-
-            int textWidth = rect.width();
-            if (textWidth > mMaxTextWidth) {
-                mMaxTextWidth = textWidth;
+        String longestLabel = mAdapter.getLongestLabel();
+        if (longestLabel != null) {
+            mMaxTextWidth = Math.max(mMaxTextWidth, (int) Math.ceil(mCenterTextPaint.measureText(longestLabel)));
+        } else {
+            for (int i = 0; i < mAdapter.getCount(); i++) {
+                String label = mAdapter.getLabel(i);
+                if (label != null) {
+                    mMaxTextWidth = Math.max(mMaxTextWidth, (int) Math.ceil(mCenterTextPaint.measureText(label)));
+                }
             }
-
-            //int textHeight = rect.height();
-            //if (textHeight > mMaxTextHeight) {
-            //    mMaxTextHeight = textHeight;
-            //}
-
-            Paint.FontMetrics fontMetrics = mCenterTextPaint.getFontMetrics();
-            mMaxTextHeight = (int) (fontMetrics.bottom - fontMetrics.top) * 2 / 3;
         }
 
+        Paint.FontMetrics fontMetrics = mCenterTextPaint.getFontMetrics();
+        mMaxTextHeight = (int) (fontMetrics.bottom - fontMetrics.top) * 2 / 3;
+
         // 计算半圆周 -- mMaxTextHeight * mLineSpacingMultiplier 表示每个item的高度  mDrawItemsCount = 7
         // 实际显示5个,留两个是在圆周的上下面
         // lineSpacingMultiplier是指text上下的距离的值和maxTextHeight一样的意思 所以 = 2
@@ -360,10 +457,11 @@ public final class LoopView extends View {
         // the radius of circular
         mCircularRadius = (int) (halfCircumference / Math.PI);
         // FIXME: 7/8/16  通过控件的高度来计算圆弧的周长
+        mArcTableDirty = true;
 
         if (mInitPosition == -1) {
             if (mCanLoop) {
-                mInitPosition = (mData.size() + 1) / 2;
+                mInitPosition = (mAdapter.getCount() + 1) / 2;
             } else {
                 mInitPosition = 0;
             }
@@ -372,24 +470,93 @@ public final class LoopView extends View {
         invalidate();
     }
 
-    private void cancelSchedule() {
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // 对话框关闭后停止动画，不再持有任何回调
+        cancelSchedule();
+        removeCallbacks(mSelectedRunnable);
+    }
 
-        if (mScheduledFuture != null && !mScheduledFuture.isCancelled()) {
-            mScheduledFuture.cancel(true);
-            mScheduledFuture = null;
+    @Override
+    public void computeScroll() {
+        if (!mScroller.computeScrollOffset()) {
+            return;
         }
+
+        mTotalScrollY = mScroller.getCurrY();
+
+        if (!mScroller.isFinished()) {
+            // 跟随屏幕刷新信号绘制下一帧
+            ViewCompat.postInvalidateOnAnimation(this);
+            return;
+        }
+
+        if (mScrollState == SCROLL_STATE_FLING) {
+            // 惯性滚动结束后，再对齐到最近的条目
+            startSmoothScrollTo();
+        } else if (mScrollState == SCROLL_STATE_SETTLING) {
+            mScrollState = SCROLL_STATE_IDLE;
+            dispatchItemSelected();
+        }
+    }
+
+    private void cancelSchedule() {
+        if (!mScroller.isFinished()) {
+            mScroller.forceFinished(true);
+        }
+        mScrollState = SCROLL_STATE_IDLE;
     }
 
+    /**
+     * Use in ACTION_UP, align to the nearest item
+     */
     private void startSmoothScrollTo() {
         int offset = (int) (mTotalScrollY % (mItemHeight));
         cancelSchedule();
-        mScheduledFuture = mExecutor.scheduleWithFixedDelay(new HalfHeightRunnable(offset), 0, 10, TimeUnit.MILLISECONDS);
+
+        int distance;
+        if ((float) offset > mItemHeight / 2.0F) {
+            // move to next item
+            distance = (int) (mItemHeight - (float) offset);
+        } else {
+            // move to pre item
+            distance = -offset;
+        }
+
+        if (distance == 0) {
+            dispatchItemSelected();
+            return;
+        }
+
+        mScrollState = SCROLL_STATE_SETTLING;
+        mScroller.startScroll(0, mTotalScrollY, 0, distance, SETTLE_DURATION);
+        ViewCompat.postInvalidateOnAnimation(this);
     }
 
+    /**
+     * Use in {@link LoopViewGestureListener#onFling(MotionEvent, MotionEvent, float, float)}
+     */
     private void startSmoothScrollTo(float velocityY) {
         cancelSchedule();
-        int velocityFling = 20;
-        mScheduledFuture = mExecutor.scheduleWithFixedDelay(new FlingRunnable(velocityY), 0, velocityFling, TimeUnit.MILLISECONDS);
+
+        int minY = Integer.MIN_VALUE;
+        int maxY = Integer.MAX_VALUE;
+        if (!mCanLoop) {
+            minY = (int) ((float) (-mInitPosition) * mItemHeight);
+            maxY = (int) ((float) (mAdapter.getCount() - 1 - mInitPosition) * mItemHeight);
+        }
+
+        mScrollState = SCROLL_STATE_FLING;
+        mScroller.fling(0, mTotalScrollY, 0, (int) -velocityY, 0, 0, minY, maxY);
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    private void dispatchItemSelected() {
+        if (mListener != null) {
+            removeCallbacks(mSelectedRunnable);
+            postDelayed(mSelectedRunnable, 200L);
+        }
     }
 
     class LoopViewGestureListener extends android.view.GestureDetector.SimpleOnGestureListener {
@@ -419,7 +586,7 @@ public final class LoopView extends View {
                     mTotalScrollY = initPositionStartY;
                 }
 
-                int circleLength = (int) ((float) (mData.size() - 1 - mInitPosition) * (mItemHeight));
+                int circleLength = (int) ((float) (mAdapter.getCount() - 1 - mInitPosition) * (mItemHeight));
                 if (mTotalScrollY >= circleLength) {
                     mTotalScrollY = circleLength;
                 }
@@ -441,117 +608,103 @@ public final class LoopView extends View {
     }
 
     /**
-     * Use in ACTION_UP
+     * 滚动列表数据适配器，按下标提供条目文本
+     */
+    public static abstract class Adapter {
+
+        /**
+         * 获取条目总数
+         */
+        public abstract int getCount();
+
+        /**
+         * 获取某个位置上的条目文本，只有条目可见的时候才会调用
+         */
+        public abstract String getLabel(int position);
+
+        /**
+         * 获取最长的条目文本，用于计算控件宽度；返回 null 则会遍历所有条目进行测量，数据量大的时候建议重写
+         */
+        public String getLongestLabel() {
+            return null;
+        }
+    }
+
+    /**
+     * 基于 List 的适配器
      */
-    private class HalfHeightRunnable implements Runnable {
+    private static final class ListAdapter extends Adapter {
 
-        int realTotalOffset;
-        int realOffset;
-        int offset;
+        private final List<String> mData;
 
-        HalfHeightRunnable(int offset) {
-            this.offset = offset;
-            realTotalOffset = Integer.MAX_VALUE;
-            realOffset = 0;
+        private ListAdapter(List<String> data) {
+            mData = data;
         }
 
         @Override
-        public void run() {
-            // first in
-            if (realTotalOffset == Integer.MAX_VALUE) {
-
-                if ((float) offset > mItemHeight / 2.0F) {
-                    // move to next item
-                    realTotalOffset = (int) (mItemHeight - (float) offset);
-                } else {
-                    // move to pre item
-                    realTotalOffset = -offset;
-                }
-            }
-
-            realOffset = (int) ((float) realTotalOffset * 0.1F);
-
-            if (realOffset == 0) {
+        public int getCount() {
+            return mData.size();
+        }
 
-                if (realTotalOffset < 0) {
-                    realOffset = -1;
-                } else {
-                    realOffset = 1;
-                }
-            }
-            if (Math.abs(realTotalOffset) <= 0) {
-                cancelSchedule();
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (mListener != null) {
-                            postDelayed(new SelectedRunnable(), 200L);
-                        }
-                    }
-                });
-            } else {
-                mTotalScrollY = mTotalScrollY + realOffset;
-                postInvalidate();
-                realTotalOffset = realTotalOffset - realOffset;
-            }
+        @Override
+        public String getLabel(int position) {
+            return mData.get(position);
         }
     }
 
     /**
-     * Use in {@link LoopViewGestureListener#onFling(MotionEvent, MotionEvent, float, float)}
+     * 数字范围适配器，例如年份、月份、日期、分钟等，不需要事先生成所有的文本
      */
-    private class FlingRunnable implements Runnable {
+    public static class NumberAdapter extends Adapter {
+
+        private final int mStart;
+        private final int mEnd;
+        private final String mSuffix;
+
+        /**
+         * @param start             起始值（包含）
+         * @param end               结束值（包含）
+         * @param suffix            文本后缀，例如单位
+         */
+        public NumberAdapter(int start, int end, String suffix) {
+            if (end < start) {
+                throw new IllegalArgumentException("end must not be less than start");
+            }
+            mStart = start;
+            mEnd = end;
+            mSuffix = suffix != null ? suffix : "";
+        }
 
-        float velocity;
-        final float velocityY;
+        /**
+         * 获取某个位置上的数值
+         */
+        public int getValue(int position) {
+            return mStart + position;
+        }
 
-        FlingRunnable(float velocityY) {
-            this.velocityY = velocityY;
-            this.velocity = Integer.MAX_VALUE;
+        /**
+         * 获取某个数值所在的位置
+         */
+        public int getPosition(int value) {
+            return value - mStart;
         }
 
         @Override
-        public void run() {
-            if (velocity == Integer.MAX_VALUE) {
-                if (Math.abs(velocityY) > 2000F) {
-                    if (velocityY > 0.0F) {
-                        velocity = 2000F;
-                    } else {
-                        velocity = -2000F;
-                    }
-                } else {
-                    velocity = velocityY;
-                }
-            }
-            Log.i(TAG, "velocity->" + velocity);
-            if (Math.abs(velocity) >= 0.0F && Math.abs(velocity) <= 20F) {
-                cancelSchedule();
-                post(new Runnable() {
-                    @Override
-                    public void run() {
-                        startSmoothScrollTo();
-                    }
-                });
-                return;
-            }
-            int i = (int) ((velocity * 10F) / 1000F);
-            mTotalScrollY = mTotalScrollY - i;
-            if (!mCanLoop) {
-                float itemHeight = mLineSpacingMultiplier * mMaxTextHeight;
-                if (mTotalScrollY <= (int) ((float) (-mInitPosition) * itemHeight)) {
-                    velocity = 40F;
-                    mTotalScrollY = (int) ((float) (-mInitPosition) * itemHeight);
-                } else if (mTotalScrollY >= (int) ((float) (mData.size() - 1 - mInitPosition) * itemHeight)) {
-                    mTotalScrollY = (int) ((float) (mData.size() - 1 - mInitPosition) * itemHeight);
-                    velocity = -40F;
-                }
-            }
-            if (velocity < 0.0F) {
-                velocity = velocity + 20F;
-            } else {
-                velocity = velocity - 20F;
-            }
-            postInvalidate();
+        public int getCount() {
+            return mEnd - mStart + 1;
+        }
+
+        @Override
+        public String getLabel(int position) {
+            return getValue(position) + mSuffix;
+        }
+
+        @Override
+        public String getLongestLabel() {
+            // 等宽字体下，字符最多的文本就是最宽的
+            String first = getLabel(0);
+            String last = getLabel(getCount() - 1);
+            return first.length() >= last.length() ? first : last;
         }
     }
 
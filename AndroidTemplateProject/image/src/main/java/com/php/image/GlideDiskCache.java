@@ -0,0 +1,409 @@
+package com.php.image;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.util.Util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/03
+ *    desc   : Glide 磁盘缓存，在默认的磁盘缓存上增加过期时间、命中统计和按地址前缀移除
+ *    illustration    :
+ *    ①磁盘缓存的文件名是 key 写入摘要的内容的 SHA-256，没办法反推出图片地址，所以写入缓存时把 key 的描述（包含图片地址）
+ *    和 key 写入摘要的内容记录到缓存目录旁边的索引文件中，按地址前缀移除时从索引中找到 key 的内容，还原成一个摘要相同的 key 再删除，
+ *    之前进程写入的缓存也能移除
+ *    ②缓存按总大小淘汰时不会通知这里，索引在加载时和数量翻倍时会去掉文件已经不存在的记录，数量不会超过磁盘上的缓存太多
+ *    ③使用索引之前写入的缓存没有记录，读取命中时会补上
+ */
+final class GlideDiskCache implements DiskCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // 整理索引的最小数量
+    private static final int MIN_COMPACT_SIZE = 256;
+
+    private final DiskCache mDiskCache;
+    private final ImageCacheConfig mConfig;
+
+    // 缓存目录
+    private final File mDirectory;
+    // 索引文件
+    private final File mIndexFile;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    // 缓存的索引，key 为缓存文件名，为 null 表示还没有从索引文件中加载
+    private Map<String, IndexEntry> mIndex;
+    // 索引数量超过这个值时去掉已经被淘汰的记录
+    private int mCompactSize = MIN_COMPACT_SIZE;
+
+    GlideDiskCache(File directory, DiskCache diskCache, ImageCacheConfig config) {
+        mDirectory = directory;
+        mIndexFile = new File(directory.getParentFile(), directory.getName() + ".index");
+        mDiskCache = diskCache;
+        mConfig = config;
+    }
+
+    @Nullable
+    @Override
+    public File get(Key key) {
+        File file = mDiskCache.get(key);
+        if (file != null && isExpired(key, file)) {
+            mDiskCache.delete(key);
+            file = null;
+        }
+
+        if (file != null) {
+            addIndex(key);
+            mHits.incrementAndGet();
+        } else {
+            mMisses.incrementAndGet();
+        }
+        return file;
+    }
+
+    @Override
+    public void put(Key key, DiskCache.Writer writer) {
+        mDiskCache.put(key, writer);
+        addIndex(key);
+    }
+
+    @Override
+    public void delete(Key key) {
+        mDiskCache.delete(key);
+        synchronized (this) {
+            loadIndex();
+            mIndex.remove(IndexEntry.getSafeKey(IndexEntry.getKeyBytes(key)));
+        }
+    }
+
+    @Override
+    public void clear() {
+        mDiskCache.clear();
+        synchronized (this) {
+            mIndex = new HashMap<>();
+            mCompactSize = MIN_COMPACT_SIZE;
+            writeIndex();
+        }
+    }
+
+    /**
+     * 移除地址以指定前缀开头的图片，会读写磁盘，必须在子线程中调用
+     */
+    void evict(String urlPrefix) {
+        List<IndexEntry> entries = new ArrayList<>();
+        synchronized (this) {
+            loadIndex();
+            Iterator<IndexEntry> iterator = mIndex.values().iterator();
+            while (iterator.hasNext()) {
+                IndexEntry entry = iterator.next();
+                if (ImageCacheConfig.matchesUrlPrefix(entry.description, urlPrefix)) {
+                    entries.add(entry);
+                    iterator.remove();
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        for (IndexEntry entry : entries) {
+            // 摘要内容相同的 key 对应的是同一个缓存文件
+            mDiskCache.delete(new IndexedKey(entry.keyBytes));
+        }
+        synchronized (this) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * 缓存文件是否已经过期，以文件的写入时间为准
+     */
+    private boolean isExpired(Key key, File file) {
+        if (!mConfig.hasDiskTtl()) {
+            return false;
+        }
+        long ttl = mConfig.getDiskTtl(key.toString());
+        return ttl > 0 && System.currentTimeMillis() - file.lastModified() > ttl;
+    }
+
+    /**
+     * 记录缓存的 key，已经记录过的不会重复写入
+     */
+    private void addIndex(Key key) {
+        byte[] keyBytes = IndexEntry.getKeyBytes(key);
+        String safeKey = IndexEntry.getSafeKey(keyBytes);
+        synchronized (this) {
+            loadIndex();
+            if (mIndex.containsKey(safeKey)) {
+                return;
+            }
+            IndexEntry entry = new IndexEntry(safeKey, key.toString(), keyBytes);
+            mIndex.put(safeKey, entry);
+
+            if (mIndex.size() > mCompactSize) {
+                compactIndex();
+                return;
+            }
+            Writer writer = null;
+            try {
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(mIndexFile, true), UTF_8));
+                entry.write(writer);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                closeQuietly(writer);
+            }
+        }
+    }
+
+    /**
+     * 从索引文件中加载索引，文件已经被淘汰的记录会被去掉
+     */
+    private void loadIndex() {
+        if (mIndex != null) {
+            return;
+        }
+        mIndex = new HashMap<>();
+        if (!mIndexFile.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mIndexFile), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                IndexEntry entry = IndexEntry.read(line);
+                if (entry != null) {
+                    mIndex.put(entry.safeKey, entry);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+        }
+        compactIndex();
+    }
+
+    /**
+     * 去掉缓存文件已经不存在的记录，并重写索引文件
+     */
+    private void compactIndex() {
+        Iterator<IndexEntry> iterator = mIndex.values().iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().getCacheFile(mDirectory).exists()) {
+                iterator.remove();
+            }
+        }
+        mCompactSize = Math.max(MIN_COMPACT_SIZE, mIndex.size() * 2);
+        writeIndex();
+    }
+
+    /**
+     * 重写索引文件，先写入临时文件再替换，避免写到一半时进程被杀导致索引损坏
+     */
+    private void writeIndex() {
+        File tempFile = new File(mIndexFile.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), UTF_8));
+            for (IndexEntry entry : mIndex.values()) {
+                entry.write(writer);
+            }
+            writer.close();
+            writer = null;
+            if (!tempFile.renameTo(mIndexFile)) {
+                throw new IOException("Failed to rename " + tempFile);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    long getHits() {
+        return mHits.get();
+    }
+
+    long getMisses() {
+        return mMisses.get();
+    }
+
+    /**
+     * 索引记录
+     */
+    private static final class IndexEntry {
+
+        // 缓存文件名（不包含后缀）
+        private final String safeKey;
+        // key 的描述，包含图片地址
+        private final String description;
+        // key 写入摘要的内容
+        private final byte[] keyBytes;
+
+        private IndexEntry(String safeKey, String description, byte[] keyBytes) {
+            this.safeKey = safeKey;
+            this.description = description;
+            this.keyBytes = keyBytes;
+        }
+
+        /**
+         * 缓存文件，DiskLruCache 的每个记录只有一个文件，文件名为 key 加上 .0
+         */
+        private File getCacheFile(File directory) {
+            return new File(directory, safeKey + ".0");
+        }
+
+        /**
+         * 写入一行：文件名、描述、key 的内容，用 Tab 分隔
+         */
+        private void write(Writer writer) throws IOException {
+            writer.write(safeKey);
+            writer.write('\t');
+            writer.write(Base64.encodeToString(description.getBytes(UTF_8), Base64.NO_WRAP));
+            writer.write('\t');
+            writer.write(Base64.encodeToString(keyBytes, Base64.NO_WRAP));
+            writer.write('\n');
+        }
+
+        /**
+         * 读取一行，格式不对（例如写到一半时进程被杀）返回 null
+         */
+        @Nullable
+        private static IndexEntry read(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 3) {
+                return null;
+            }
+            try {
+                return new IndexEntry(fields[0], new String(Base64.decode(fields[1], Base64.NO_WRAP), UTF_8),
+                        Base64.decode(fields[2], Base64.NO_WRAP));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 获取 key 写入摘要的内容
+         */
+        private static byte[] getKeyBytes(Key key) {
+            RecordingDigest digest = new RecordingDigest();
+            key.updateDiskCacheKey(digest);
+            return digest.digest();
+        }
+
+        /**
+         * 和 Glide 的 SafeKeyGenerator 生成缓存文件名的规则一致
+         */
+        private static String getSafeKey(byte[] keyBytes) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return Util.sha256BytesToHex(digest.digest(keyBytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 只记录写入内容的摘要，用于取出 key 写入摘要的内容
+     */
+    private static final class RecordingDigest extends MessageDigest {
+
+        private final ByteArrayOutputStream mBytes = new ByteArrayOutputStream();
+
+        private RecordingDigest() {
+            super("RECORDING");
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            mBytes.write(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            mBytes.write(input, offset, len);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            byte[] bytes = mBytes.toByteArray();
+            mBytes.reset();
+            return bytes;
+        }
+
+        @Override
+        protected void engineReset() {
+            mBytes.reset();
+        }
+    }
+
+    /**
+     * 从索引中还原的 key，写入摘要的内容和原来的 key 一样，所以对应同一个缓存文件
+     */
+    private static final class IndexedKey implements Key {
+
+        private final byte[] mBytes;
+
+        private IndexedKey(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        @Override
+        public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+            messageDigest.update(mBytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IndexedKey && Arrays.equals(mBytes, ((IndexedKey) o).mBytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(mBytes);
+        }
+    }
+}
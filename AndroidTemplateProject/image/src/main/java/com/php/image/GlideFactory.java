@@ -1,12 +1,22 @@
 package com.php.image;
 
+import android.app.ActivityManager;
 import android.app.Application;
 import android.content.Context;
 import android.graphics.drawable.Drawable;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
 import com.php.copy.R;
 
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  *    author : xxx
  *    xxx
@@ -15,15 +25,50 @@ import com.php.copy.R;
  */
 public class GlideFactory implements ImageFactory<GlideHandler> {
 
+    // 磁盘缓存操作的线程池（只有一个线程，空闲时会自动回收）
+    private static final Executor DISK_EXECUTOR = new ThreadPoolExecutor(0, 1,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    private final ImageCacheConfig mConfig;
+
+    private GlideMemoryCache mMemoryCache;
+    private GlideDiskCache mDiskCache;
+
+    public GlideFactory() {
+        this(new ImageCacheConfig());
+    }
+
+    public GlideFactory(ImageCacheConfig config) {
+        mConfig = config;
+    }
+
     @Override
     public GlideHandler create() {
         return new GlideHandler();
     }
 
     @Override
-    public void init(Application application, GlideHandler handler) {
+    public void init(final Application application, GlideHandler handler) {
         handler.setPlaceholder(getLoadingPic(application));
         handler.setError(getErrorPic(application));
+
+        // 内存缓存按应用可用内存的比例计算
+        ActivityManager manager = (ActivityManager) application.getSystemService(Context.ACTIVITY_SERVICE);
+        long memorySize = (long) (manager.getMemoryClass() * 1024L * 1024L * mConfig.getMemoryFraction());
+        mMemoryCache = new GlideMemoryCache(memorySize);
+
+        Glide.init(application, new GlideBuilder()
+                .setMemoryCache(mMemoryCache)
+                .setDiskCache(new DiskCache.Factory() {
+
+                    @Override
+                    public DiskCache build() {
+                        // 和 Glide 默认的缓存目录保持一致，之前的缓存可以继续使用
+                        File directory = new File(application.getCacheDir(), DiskCache.Factory.DEFAULT_DISK_CACHE_DIR);
+                        mDiskCache = new GlideDiskCache(directory, DiskLruCacheWrapper.create(directory, mConfig.getDiskSize()), mConfig);
+                        return mDiskCache;
+                    }
+                }));
     }
 
     @Override
@@ -40,12 +85,43 @@ public class GlideFactory implements ImageFactory<GlideHandler> {
     public void clear(final Context context) {
         // 清除内存缓存（必须在主线程）
         Glide.get(context).clearMemory();
-        new Thread(new Runnable() {
+        DISK_EXECUTOR.execute(new Runnable() {
             @Override
             public void run() {
                 // 清除本地缓存（必须在子线程）
                 Glide.get(context).clearDiskCache();
             }
-        }).start();
+        });
+    }
+
+    @Override
+    public void evict(Context context, final String urlPrefix) {
+        if (mMemoryCache != null) {
+            mMemoryCache.evict(urlPrefix);
+        }
+        DISK_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // 磁盘缓存在第一次使用时才会创建
+                if (mDiskCache != null) {
+                    mDiskCache.evict(urlPrefix);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void trimMemory(Context context, int level) {
+        // 后台时清空内存缓存，界面不可见或者内存非常紧张时缩减一半（必须在主线程）
+        Glide.get(context).trimMemory(level);
+    }
+
+    @Override
+    public ImageCacheStats getCacheStats() {
+        return new ImageCacheStats(
+                mMemoryCache != null ? mMemoryCache.getHits() : 0,
+                mMemoryCache != null ? mMemoryCache.getMisses() : 0,
+                mDiskCache != null ? mDiskCache.getHits() : 0,
+                mDiskCache != null ? mDiskCache.getMisses() : 0);
     }
-}
\ No newline at end of file
+}
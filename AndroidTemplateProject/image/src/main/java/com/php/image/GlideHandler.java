@@ -6,15 +6,19 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapShader;
 import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
 import android.support.v4.app.FragmentActivity;
+import android.util.SparseArray;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
 import com.bumptech.glide.request.RequestOptions;
@@ -27,18 +31,71 @@ import java.security.MessageDigest;
  *    xxx
  *    time   : 2018/12/26
  *    desc   : Glide 加载实现类
+ *    illustration    :
+ *    ①普通、圆形、圆角的请求配置只创建一次并锁定为不可变，之后每次加载都复用同一个对象
+ *    ②圆形和圆角的变换按值比较，同一个地址、同一种形状和尺寸的请求在 Glide 内部是同一个缓存 key，
+ *    同时加载到多个 ImageView 时只会解码一次，解码完成后也能直接命中内存缓存
  */
 class GlideHandler implements ImageHandler {
 
+    // 圆角请求配置最多缓存的数量
+    private static final int ROUND_OPTIONS_CACHE_SIZE = 8;
+
     private Drawable mPlaceholder;
     private Drawable mError;
 
+    // 普通图片的请求配置
+    private RequestOptions mNormalOptions;
+    // 圆形图片的请求配置
+    private RequestOptions mCircleOptions;
+    // 圆角图片的请求配置，key 为圆角大小的 Float.floatToIntBits，避免每次查找都装箱
+    private final SparseArray<RequestOptions> mRoundOptions = new SparseArray<>(ROUND_OPTIONS_CACHE_SIZE);
+
     void setPlaceholder(Drawable placeholder) {
         mPlaceholder = placeholder;
+        clearOptions();
     }
 
     void setError(Drawable error) {
         mError = error;
+        clearOptions();
+    }
+
+    /**
+     * 占位图变化后需要重新创建请求配置
+     */
+    private void clearOptions() {
+        mNormalOptions = null;
+        mCircleOptions = null;
+        mRoundOptions.clear();
+    }
+
+    private RequestOptions getNormalOptions() {
+        if (mNormalOptions == null) {
+            mNormalOptions = RequestOptions.errorOf(mError).placeholder(mPlaceholder).lock();
+        }
+        return mNormalOptions;
+    }
+
+    private RequestOptions getCircleOptions() {
+        if (mCircleOptions == null) {
+            mCircleOptions = RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new CircleTransformation()).lock();
+        }
+        return mCircleOptions;
+    }
+
+    private RequestOptions getRoundOptions(float radius) {
+        int key = Float.floatToIntBits(radius);
+        RequestOptions options = mRoundOptions.get(key);
+        if (options == null) {
+            if (mRoundOptions.size() >= ROUND_OPTIONS_CACHE_SIZE) {
+                // 一般只会用到几种圆角大小，超出数量时全部重新创建
+                mRoundOptions.clear();
+            }
+            options = RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new RadiusTransformation(radius)).lock();
+            mRoundOptions.put(key, options);
+        }
+        return options;
     }
 
     @Override
@@ -46,7 +103,7 @@ class GlideHandler implements ImageHandler {
         if (url != null && !"".equals(url)) {
             getGlide(object)
                     .load(url.trim())
-                    .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder))
+                    .apply(getNormalOptions())
                     .into(imageView);
         }
     }
@@ -55,7 +112,7 @@ class GlideHandler implements ImageHandler {
     public void loadImage(Object object, ImageView imageView, int resourceId) {
         getGlide(object)
                 .load(resourceId)
-                .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder))
+                .apply(getNormalOptions())
                 .into(imageView);
     }
 
@@ -65,7 +122,7 @@ class GlideHandler implements ImageHandler {
         if (url != null && !"".equals(url)) {
             getGlide(object)
                     .load(url.trim())
-                    .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new CircleTransformation()))
+                    .apply(getCircleOptions())
                     .into(imageView);
         }
     }
@@ -74,7 +131,7 @@ class GlideHandler implements ImageHandler {
     public void loadCircleImage(Object object, ImageView imageView, int resourceId) {
         getGlide(object)
                 .load(resourceId)
-                .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new CircleTransformation()))
+                .apply(getCircleOptions())
                 .into(imageView);
     }
 
@@ -83,7 +140,7 @@ class GlideHandler implements ImageHandler {
         if (url != null && !"".equals(url)) {
             getGlide(object)
                     .load(url.trim())
-                    .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new RadiusTransformation(radius)))
+                    .apply(getRoundOptions(radius))
                     .into(imageView);
         }
     }
@@ -92,10 +149,60 @@ class GlideHandler implements ImageHandler {
     public void loadRoundImage(Object object, ImageView imageView, int resourceId, float radius) {
         getGlide(object)
                 .load(resourceId)
-                .apply(RequestOptions.errorOf(mError).placeholder(mPlaceholder).transform(new RadiusTransformation(radius)))
+                .apply(getRoundOptions(radius))
                 .into(imageView);
     }
 
+    @Override
+    public void loadImage(Object object, ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail) {
+        if (url != null && !"".equals(url)) {
+            // 不按 ImageView 的 scaleType 添加裁剪变换，缓存的 key 才能和 preload 的一致，显示时由 ImageView 自己缩放
+            RequestBuilder<Drawable> builder = getGlide(object)
+                    .load(url.trim())
+                    .apply(getNormalOptions())
+                    .apply(getSizeOptions(width, height, config).dontTransform());
+            if (thumbnail > 0 && thumbnail < 1) {
+                builder = builder.thumbnail(thumbnail);
+            }
+            builder.into(imageView);
+        }
+    }
+
+    @Override
+    public void loadCircleImage(Object object, ImageView imageView, String url, int size) {
+        if (url != null && !"".equals(url)) {
+            // 圆形变换会输出带透明度的图片，原图解码成 RGB_565 就可以了
+            getGlide(object)
+                    .load(url.trim())
+                    .apply(getCircleOptions())
+                    .apply(getSizeOptions(size, size, Bitmap.Config.RGB_565))
+                    .into(imageView);
+        }
+    }
+
+    @Override
+    public void preload(Object object, String url, int width, int height) {
+        if (url != null && !"".equals(url) && width > 0 && height > 0) {
+            // 配置需要和加载时一致，否则缓存的 key 不同；into(ImageView) 会按 scaleType 添加变换，所以两边都不变换
+            getGlide(object)
+                    .load(url.trim())
+                    .apply(getNormalOptions())
+                    .apply(getSizeOptions(width, height, Bitmap.Config.ARGB_8888).dontTransform())
+                    .preload(width, height);
+        }
+    }
+
+    /**
+     * 获取指定尺寸和解码格式的请求配置
+     */
+    private static RequestOptions getSizeOptions(int width, int height, Bitmap.Config config) {
+        RequestOptions options = RequestOptions.formatOf(config == Bitmap.Config.RGB_565 ? DecodeFormat.PREFER_RGB_565 : DecodeFormat.PREFER_ARGB_8888);
+        if (width > 0 && height > 0) {
+            options = options.override(width, height);
+        }
+        return options;
+    }
+
     /**
      * 获取一个 Glide 的请求对象
      */
@@ -119,6 +226,46 @@ class GlideHandler implements ImageHandler {
         throw new IllegalArgumentException("This object is illegal");
     }
 
+    // 变换时使用的绘制工具，Glide 会在多个解码线程中同时变换，所以每个线程各自复用一份
+    private static final ThreadLocal<DrawTools> DRAW_TOOLS = new ThreadLocal<DrawTools>() {
+
+        @Override
+        protected DrawTools initialValue() {
+            return new DrawTools();
+        }
+    };
+
+    /**
+     * 变换绘制工具，避免每次变换都创建画笔、画布和矩形对象
+     * 着色器和原图绑定，没办法更换图片，只能每次变换创建一个
+     */
+    private static final class DrawTools {
+
+        private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        private final Canvas canvas = new Canvas();
+        private final Matrix matrix = new Matrix();
+        private final RectF rect = new RectF();
+
+        /**
+         * 准备把原图绘制到目标图片上，着色器使用当前的矩阵
+         */
+        private Canvas begin(Bitmap target, Bitmap source) {
+            BitmapShader shader = new BitmapShader(source, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP);
+            shader.setLocalMatrix(matrix);
+            paint.setShader(shader);
+            canvas.setBitmap(target);
+            return canvas;
+        }
+
+        /**
+         * 绘制完成后释放对图片的引用，避免图片放回缓存池后还被持有
+         */
+        private void end() {
+            canvas.setBitmap(null);
+            paint.setShader(null);
+        }
+    }
+
     /**
      * 圆形图片加载：https://github.com/sunfusheng/GlideImageView/blob/master/GlideImageView/src/main/java/com/sunfusheng/transformation/CircleTransformation.java
      */
@@ -132,24 +279,24 @@ class GlideHandler implements ImageHandler {
             int x = (toTransform.getWidth() - size) / 2;
             int y = (toTransform.getHeight() - size) / 2;
 
-            Bitmap square = Bitmap.createBitmap(toTransform, x, y, size, size);
+            // 从缓存池中取出目标图片，原图由 Glide 在变换完成后放回缓存池
             Bitmap circle = pool.get(size, size, Bitmap.Config.ARGB_8888);
+            circle.setHasAlpha(true);
 
-            Canvas canvas = new Canvas(circle);
-            Paint paint = new Paint();
-            paint.setShader(new BitmapShader(square, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP));
-            paint.setAntiAlias(true);
+            DrawTools tools = DRAW_TOOLS.get();
+            // 通过着色器的矩阵平移来裁剪中间的正方形，不需要再创建一张中间图片
+            tools.matrix.setTranslate(-x, -y);
             float r = size / 2f;
-            canvas.drawCircle(r, r, r, paint);
+            Canvas canvas = tools.begin(circle, toTransform);
+            canvas.drawCircle(r, r, r, tools.paint);
+            tools.end();
             return circle;
         }
 
         @Override
         public boolean equals(Object obj) {
-            if (obj instanceof CircleTransformation) {
-                return this == obj;
-            }
-            return false;
+            // 没有参数，同类型的变换都是相等的，这样才能命中缓存和合并相同的请求
+            return obj instanceof CircleTransformation;
         }
 
         @Override
@@ -183,11 +330,13 @@ class GlideHandler implements ImageHandler {
 
             Bitmap bitmap = pool.get(width, height, Bitmap.Config.ARGB_8888);
             bitmap.setHasAlpha(true);
-            Canvas canvas = new Canvas(bitmap);
-            Paint paint = new Paint();
-            paint.setAntiAlias(true);
-            paint.setShader(new BitmapShader(toTransform, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP));
-            canvas.drawRoundRect(new RectF(0, 0, width, height), radius, radius, paint);
+
+            DrawTools tools = DRAW_TOOLS.get();
+            tools.matrix.reset();
+            tools.rect.set(0, 0, width, height);
+            Canvas canvas = tools.begin(bitmap, toTransform);
+            canvas.drawRoundRect(tools.rect, radius, radius, tools.paint);
+            tools.end();
             return bitmap;
         }
 
@@ -0,0 +1,90 @@
+package com.php.image;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/03
+ *    desc   : Glide 内存缓存，在默认的 LRU 缓存上增加命中统计和按地址前缀移除
+ */
+final class GlideMemoryCache extends LruResourceCache {
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    // 当前缓存中的 key，用于按地址前缀移除
+    private final Set<Key> mKeys = new HashSet<>();
+
+    GlideMemoryCache(long size) {
+        super(size);
+    }
+
+    @Nullable
+    @Override
+    public synchronized Resource<?> put(@NonNull Key key, @Nullable Resource<?> item) {
+        Resource<?> previous = super.put(key, item);
+        if (contains(key)) {
+            mKeys.add(key);
+        }
+        return previous;
+    }
+
+    /**
+     * Glide 只会在活动资源中找不到时才会从内存缓存中取出，所以这里就是内存缓存的命中统计
+     */
+    @Nullable
+    @Override
+    public synchronized Resource<?> remove(@NonNull Key key) {
+        Resource<?> resource = super.remove(key);
+        if (resource != null) {
+            mKeys.remove(key);
+            mHits.incrementAndGet();
+        } else {
+            mMisses.incrementAndGet();
+        }
+        return resource;
+    }
+
+    @Override
+    protected void onItemEvicted(@NonNull Key key, @Nullable Resource<?> item) {
+        mKeys.remove(key);
+        super.onItemEvicted(key, item);
+    }
+
+    /**
+     * 移除地址以指定前缀开头的图片
+     */
+    synchronized void evict(String urlPrefix) {
+        List<Key> keys = new ArrayList<>();
+        for (Key key : mKeys) {
+            if (ImageCacheConfig.matchesUrlPrefix(key.toString(), urlPrefix)) {
+                keys.add(key);
+            }
+        }
+        for (Key key : keys) {
+            // 不经过 remove 避免计入统计，移除后通知 Glide 回收图片
+            Resource<?> resource = super.remove(key);
+            onItemEvicted(key, resource);
+        }
+    }
+
+    long getHits() {
+        return mHits.get();
+    }
+
+    long getMisses() {
+        return mMisses.get();
+    }
+}
@@ -0,0 +1,123 @@
+package com.php.image;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/03
+ *    desc   : 图片缓存配置
+ *    illustration    :
+ *    ①内存缓存按应用可用内存（ActivityManager.getMemoryClass）的比例计算，不同内存的机型自动适配
+ *    ②磁盘缓存有总大小上限，每张图片还可以按地址前缀设置不同的过期时间，过期后会重新下载
+ */
+public final class ImageCacheConfig {
+
+    /** 默认内存缓存占应用可用内存的比例 */
+    private static final float DEFAULT_MEMORY_FRACTION = 0.15f;
+    /** 默认磁盘缓存大小 */
+    private static final long DEFAULT_DISK_SIZE = 100 * 1024 * 1024;
+
+    private float mMemoryFraction = DEFAULT_MEMORY_FRACTION;
+    private long mDiskSize = DEFAULT_DISK_SIZE;
+    // 默认的磁盘缓存过期时间，0 表示永不过期
+    private long mDiskTtl;
+    // 按地址前缀设置的过期时间
+    private final List<String> mTtlPrefixes = new ArrayList<>();
+    private final List<Long> mTtlValues = new ArrayList<>();
+
+    /**
+     * 设置内存缓存占应用可用内存的比例
+     *
+     * @param fraction          比例（0 ~ 1）
+     */
+    public ImageCacheConfig setMemoryFraction(float fraction) {
+        if (fraction <= 0 || fraction >= 1) {
+            throw new IllegalArgumentException("The memory fraction must be between 0 and 1");
+        }
+        mMemoryFraction = fraction;
+        return this;
+    }
+
+    /**
+     * 设置磁盘缓存的大小上限
+     *
+     * @param size              字节数
+     */
+    public ImageCacheConfig setDiskSize(long size) {
+        mDiskSize = size;
+        return this;
+    }
+
+    /**
+     * 设置磁盘缓存默认的过期时间
+     *
+     * @param ttl               毫秒数，0 表示永不过期
+     */
+    public ImageCacheConfig setDiskTtl(long ttl) {
+        mDiskTtl = ttl;
+        return this;
+    }
+
+    /**
+     * 给某个地址前缀的图片单独设置磁盘缓存的过期时间，多个前缀同时匹配时以最长的为准
+     *
+     * @param urlPrefix         图片地址前缀
+     * @param ttl               毫秒数，0 表示永不过期
+     */
+    public ImageCacheConfig addDiskTtl(@NonNull String urlPrefix, long ttl) {
+        mTtlPrefixes.add(urlPrefix);
+        mTtlValues.add(ttl);
+        return this;
+    }
+
+    float getMemoryFraction() {
+        return mMemoryFraction;
+    }
+
+    long getDiskSize() {
+        return mDiskSize;
+    }
+
+    /**
+     * 是否设置了过期时间
+     */
+    boolean hasDiskTtl() {
+        return mDiskTtl > 0 || !mTtlPrefixes.isEmpty();
+    }
+
+    /**
+     * 获取某个缓存 key 的过期时间
+     *
+     * @param key               缓存 key 的字符串形式
+     */
+    long getDiskTtl(String key) {
+        long ttl = mDiskTtl;
+        int matchLength = -1;
+        for (int i = 0; i < mTtlPrefixes.size(); i++) {
+            String prefix = mTtlPrefixes.get(i);
+            if (prefix.length() > matchLength && matchesUrlPrefix(key, prefix)) {
+                ttl = mTtlValues.get(i);
+                matchLength = prefix.length();
+            }
+        }
+        return ttl;
+    }
+
+    /**
+     * 判断缓存 key 对应的图片地址是否以指定前缀开头
+     * Glide 的缓存 key 没有公开图片地址，但是 toString 中会以 “model=地址” 或者 “sourceKey=地址” 的形式包含地址
+     *
+     * @param key               缓存 key 的字符串形式
+     */
+    static boolean matchesUrlPrefix(String key, String prefix) {
+        int index = key.indexOf(prefix);
+        while (index > 0 && key.charAt(index - 1) != '=') {
+            index = key.indexOf(prefix, index + 1);
+        }
+        return index >= 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.php.image;
+
+/**
+ *    author : xxx
+ *    xxx
+ *    time   : 2019/06/03
+ *    desc   : 图片缓存命中统计（某一时刻的快照）
+ */
+public final class ImageCacheStats {
+
+    private final long mMemoryHits;
+    private final long mMemoryMisses;
+    private final long mDiskHits;
+    private final long mDiskMisses;
+
+    ImageCacheStats(long memoryHits, long memoryMisses, long diskHits, long diskMisses) {
+        mMemoryHits = memoryHits;
+        mMemoryMisses = memoryMisses;
+        mDiskHits = diskHits;
+        mDiskMisses = diskMisses;
+    }
+
+    /**
+     * 内存缓存命中次数
+     */
+    public long getMemoryHits() {
+        return mMemoryHits;
+    }
+
+    /**
+     * 内存缓存未命中次数
+     */
+    public long getMemoryMisses() {
+        return mMemoryMisses;
+    }
+
+    /**
+     * 磁盘缓存命中次数
+     */
+    public long getDiskHits() {
+        return mDiskHits;
+    }
+
+    /**
+     * 磁盘缓存未命中次数（包括已经过期的缓存）
+     */
+    public long getDiskMisses() {
+        return mDiskMisses;
+    }
+
+    /**
+     * 内存缓存命中率
+     */
+    public float getMemoryHitRate() {
+        return getHitRate(mMemoryHits, mMemoryMisses);
+    }
+
+    /**
+     * 磁盘缓存命中率
+     */
+    public float getDiskHitRate() {
+        return getHitRate(mDiskHits, mDiskMisses);
+    }
+
+    private static float getHitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageCacheStats{memory=" + mMemoryHits + "/" + (mMemoryHits + mMemoryMisses)
+                + ", disk=" + mDiskHits + "/" + (mDiskHits + mDiskMisses) + "}";
+    }
+}
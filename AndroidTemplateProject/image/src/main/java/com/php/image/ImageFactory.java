@@ -33,7 +33,24 @@ public interface ImageFactory<T extends ImageHandler> {
     Drawable getErrorPic(Context context);
 
     /**
-     * 清理缓存
+     * 清理全部缓存
      */
     void clear(Context context);
+
+    /**
+     * 移除地址以指定前缀开头的图片缓存
+     */
+    void evict(Context context, String urlPrefix);
+
+    /**
+     * 根据内存紧张程度释放内存缓存
+     *
+     * @param level             {@link android.content.ComponentCallbacks2} 中的内存等级
+     */
+    void trimMemory(Context context, int level);
+
+    /**
+     * 获取缓存命中统计
+     */
+    ImageCacheStats getCacheStats();
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.php.image;
 
+import android.graphics.Bitmap;
 import android.widget.ImageView;
 
 /**
@@ -39,4 +40,27 @@ public interface ImageHandler {
      * 通过资源 id 加载圆角图片
      */
     void loadRoundImage(Object object, ImageView imageView, int resourceId, float radius);
+
+    /**
+     * 通过 url 按指定尺寸加载普通图片
+     *
+     * @param width             解码的目标宽度（px），小于等于 0 则使用 ImageView 的尺寸
+     * @param height            解码的目标高度（px），小于等于 0 则使用 ImageView 的尺寸
+     * @param config            解码格式，不需要透明度的图片使用 {@link Bitmap.Config#RGB_565} 可以减少一半内存
+     * @param thumbnail         缩略图比例（0 ~ 1），大于 0 时会先显示这个比例的缩略图，再显示原图
+     */
+    void loadImage(Object object, ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail);
+
+    /**
+     * 通过 url 按指定尺寸加载圆形图片
+     *
+     * @param size              解码的目标尺寸（px），小于等于 0 则使用 ImageView 的尺寸
+     */
+    void loadCircleImage(Object object, ImageView imageView, String url, int size);
+
+    /**
+     * 通过 url 按指定尺寸预加载普通图片到内存缓存中，之后使用同样尺寸的
+     * {@link #loadImage(Object, ImageView, String, int, int, Bitmap.Config, float)} 可以直接命中缓存
+     */
+    void preload(Object object, String url, int width, int height);
 }
\ No newline at end of file
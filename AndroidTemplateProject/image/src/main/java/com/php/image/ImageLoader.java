@@ -3,6 +3,7 @@ package com.php.image;
 import android.app.Application;
 import android.app.Fragment;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.widget.ImageView;
@@ -23,6 +24,13 @@ public class ImageLoader {
         init(application, new GlideFactory());
     }
 
+    /**
+     * 使用 Glide 和指定的缓存配置进行初始化
+     */
+    public static void init(@NonNull Application application, @NonNull ImageCacheConfig config) {
+        init(application, new GlideFactory(config));
+    }
+
     /**
      * 使用指定的图片加载器进行初始化
      *
@@ -42,6 +50,29 @@ public class ImageLoader {
         sImageFactory.clear(context);
     }
 
+    /**
+     * 移除地址以指定前缀开头的图片缓存，例如用户更换头像后移除旧头像
+     */
+    public static void evict(@NonNull Context context, @NonNull String urlPrefix) {
+        sImageFactory.evict(context, urlPrefix);
+    }
+
+    /**
+     * 根据内存紧张程度释放图片内存缓存（必须在主线程）
+     *
+     * @param level             {@link android.content.ComponentCallbacks2} 中的内存等级
+     */
+    public static void trimMemory(@NonNull Context context, int level) {
+        sImageFactory.trimMemory(context, level);
+    }
+
+    /**
+     * 获取图片缓存命中统计
+     */
+    public static ImageCacheStats getCacheStats() {
+        return sImageFactory.getCacheStats();
+    }
+
     /**
      * 加载普通图片
      */
@@ -72,6 +103,39 @@ public class ImageLoader {
         sImageHandler.loadImage(fragment, imageView, resourceId);
     }
 
+    /**
+     * 按指定尺寸加载普通图片，列表中的小图建议指定尺寸和 RGB_565，大图建议加上缩略图
+     * 图片只按尺寸缩小解码，不会按 ImageView 的 scaleType 裁剪，由 ImageView 显示时缩放
+     *
+     * @param width             解码的目标宽度（px）
+     * @param height            解码的目标高度（px）
+     * @param config            解码格式，RGB_565 或者 ARGB_8888
+     * @param thumbnail         缩略图比例（0 ~ 1），传 0 则不加载缩略图
+     */
+
+    public static void loadImage(@NonNull ImageView imageView, String url, int width, int height) {
+        loadImage(imageView.getContext(), imageView, url, width, height, Bitmap.Config.ARGB_8888, 0);
+    }
+    public static void loadImage(@NonNull ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail) {
+        loadImage(imageView.getContext(), imageView, url, width, height, config, thumbnail);
+    }
+    public static void loadImage(@NonNull Context context, @NonNull ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail) {
+        sImageHandler.loadImage(context, imageView, url, width, height, config, thumbnail);
+    }
+    public static void loadImage(Fragment fragment, @NonNull ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail) {
+        sImageHandler.loadImage(fragment, imageView, url, width, height, config, thumbnail);
+    }
+    public static void loadImage(android.support.v4.app.Fragment fragment, @NonNull ImageView imageView, String url, int width, int height, Bitmap.Config config, float thumbnail) {
+        sImageHandler.loadImage(fragment, imageView, url, width, height, config, thumbnail);
+    }
+
+    /**
+     * 按指定尺寸预加载普通图片，之后通过 {@link #loadImage(ImageView, String, int, int)} 加载同样尺寸的图片可以直接命中内存缓存
+     */
+    public static void preload(@NonNull Context context, String url, int width, int height) {
+        sImageHandler.preload(context, url, width, height);
+    }
+
     /**
      * 加载圆形图片
      */
@@ -102,6 +166,25 @@ public class ImageLoader {
         sImageHandler.loadCircleImage(fragment, imageView, resourceId);
     }
 
+    /**
+     * 按指定尺寸加载圆形图片，适用于列表中的头像
+     *
+     * @param size              解码的目标尺寸（px）
+     */
+
+    public static void loadCircleImage(@NonNull ImageView imageView, String url, int size) {
+        loadCircleImage(imageView.getContext(), imageView, url, size);
+    }
+    public static void loadCircleImage(@NonNull Context context, @NonNull ImageView imageView, String url, int size) {
+        sImageHandler.loadCircleImage(context, imageView, url, size);
+    }
+    public static void loadCircleImage(Fragment fragment, @NonNull ImageView imageView, String url, int size) {
+        sImageHandler.loadCircleImage(fragment, imageView, url, size);
+    }
+    public static void loadCircleImage(android.support.v4.app.Fragment fragment, @NonNull ImageView imageView, String url, int size) {
+        sImageHandler.loadCircleImage(fragment, imageView, url, size);
+    }
+
     /**
      * 加载圆角图片
      */